@@ -0,0 +1,124 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import jetbrains.buildServer.gradle.runtime.listening.AsyncBuildEventDispatcher;
+import jetbrains.buildServer.gradle.runtime.listening.BuildEventListener;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildFinishedEventImpl;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildResult;
+import jetbrains.buildServer.gradle.runtime.listening.event.SuccessResultImpl;
+import jetbrains.buildServer.gradle.runtime.listening.event.TaskFinishedEventImpl;
+import jetbrains.buildServer.gradle.runtime.listening.event.TaskOutputEventImpl;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.OutputType;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class AsyncBuildEventDispatcherTest {
+
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  @Test
+  public void should_DeliverAllEventsInOrder_When_BuildIsFinished() {
+    // arrange
+    List<String> received = new CopyOnWriteArrayList<>();
+    BuildEventListener listener = event -> received.add(event.getMessage());
+    AsyncBuildEventDispatcher dispatcher = new AsyncBuildEventDispatcher(logger, Collections.singletonList(listener), 16);
+    List<String> expected = new ArrayList<>();
+
+    // act
+    for (int i = 0; i < 10; i++) {
+      dispatcher.onEvent(new TaskFinishedEventImpl("id" + i, 0, ":task" + i, new SuccessResultImpl()));
+      expected.add(":task" + i);
+    }
+    dispatcher.onEvent(new BuildFinishedEventImpl(0, "Build completed successfully", BuildResult.SUCCEEDED));
+    expected.add("Build completed successfully");
+
+    // assert
+    assertEquals(received, expected);
+    assertEquals(dispatcher.getQueueDepth(), 0);
+    assertEquals(dispatcher.getDroppedEventsCount(), 0);
+  }
+
+  @Test
+  public void should_DropTaskOutputAndCountIt_When_QueueIsFull() throws InterruptedException {
+    // arrange
+    CountDownLatch listenerStarted = new CountDownLatch(1);
+    CountDownLatch listenerReleased = new CountDownLatch(1);
+    List<String> received = new CopyOnWriteArrayList<>();
+    BuildEventListener listener = event -> {
+      received.add(event.getMessage());
+      listenerStarted.countDown();
+      awaitQuietly(listenerReleased);
+    };
+    AsyncBuildEventDispatcher dispatcher = new AsyncBuildEventDispatcher(logger, Collections.singletonList(listener), 4);
+
+    // act
+    dispatcher.onEvent(output("first"));
+    listenerStarted.await(10, TimeUnit.SECONDS);
+    for (int i = 0; i < 6; i++) {
+      dispatcher.onEvent(output("line" + i));
+    }
+    long queueDepth = dispatcher.getQueueDepth();
+    listenerReleased.countDown();
+    dispatcher.onEvent(new BuildFinishedEventImpl(0, "Build failed", BuildResult.FAILED));
+
+    // assert
+    assertEquals(queueDepth, 4);
+    assertEquals(dispatcher.getDroppedEventsCount(), 2);
+    assertEquals(dispatcher.getMaxQueueDepth(), 4);
+    assertEquals(received.size(), 6);
+    assertEquals(received.get(received.size() - 1), "Build failed");
+  }
+
+  @Test
+  public void should_KeepDelivering_When_ListenerFails() {
+    // arrange
+    List<String> received = new CopyOnWriteArrayList<>();
+    List<BuildEventListener> listeners = new ArrayList<>();
+    listeners.add(event -> {
+      throw new IllegalStateException("failed");
+    });
+    listeners.add(event -> received.add(event.getMessage()));
+    AsyncBuildEventDispatcher dispatcher = new AsyncBuildEventDispatcher(logger, listeners, 16);
+
+    // act
+    dispatcher.onEvent(output("line"));
+    dispatcher.onEvent(new BuildFinishedEventImpl(0, "Build completed successfully", BuildResult.SUCCEEDED));
+
+    // assert
+    assertEquals(received.size(), 2);
+  }
+
+  @NotNull
+  private static BuildEvent output(@NotNull String line) {
+    return new TaskOutputEventImpl(0, line, OutputType.STD_OUT);
+  }
+
+  private static void awaitQuietly(@NotNull CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.service.BackgroundDirectoryDeleter;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class BackgroundDirectoryDeleterTest {
+
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  private final TempFiles tempFiles = new TempFiles();
+  private final BackgroundDirectoryDeleter deleter = new BackgroundDirectoryDeleter(logger);
+  private Path buildTempDir;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    buildTempDir = tempFiles.createTempDir().toPath();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_DeleteDirectoryTree_When_DeletedInBackground() throws Exception {
+    // arrange
+    Path taskOutputDir = createTree(buildTempDir.resolve("task-output"));
+
+    // act
+    deleter.deleteInBackground(taskOutputDir).get(30, TimeUnit.SECONDS);
+
+    // assert
+    assertFalse(Files.exists(taskOutputDir));
+  }
+
+  @Test
+  public void should_FreeOriginalLocation_When_MovedAside() throws Exception {
+    // arrange
+    Path taskOutputDir = createTree(buildTempDir.resolve("task-output"));
+
+    // act
+    Path movedDir = deleter.moveAside(taskOutputDir);
+
+    // assert
+    assertFalse(Files.exists(taskOutputDir));
+    assertTrue(Files.exists(movedDir.resolve("a").resolve("b").resolve("file")));
+    assertEquals(movedDir.getParent(), buildTempDir);
+  }
+
+  @Test
+  public void should_DeleteDirectoriesMovedAsideEarlier_When_DeletingLeftovers() throws Exception {
+    // arrange
+    Path taskOutputDir = buildTempDir.resolve("task-output");
+    Path movedDir = deleter.moveAside(createTree(taskOutputDir));
+    Path unrelatedDir = Files.createDirectory(buildTempDir.resolve("other"));
+
+    // act
+    deleter.deleteLeftoversInBackground(taskOutputDir);
+
+    // assert
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+    while (Files.exists(movedDir) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertFalse(Files.exists(movedDir));
+    assertTrue(Files.exists(unrelatedDir));
+  }
+
+  @NotNull
+  private static Path createTree(@NotNull Path root) throws IOException {
+    for (int i = 0; i < 5; i++) {
+      Path dir = Files.createDirectories(root.resolve("dir" + i).resolve("nested"));
+      Files.write(dir.resolve("file"), new byte[]{1, 2, 3});
+      Files.write(root.resolve("dir" + i).resolve("file"), new byte[]{1, 2, 3});
+    }
+    Path deep = Files.createDirectories(root.resolve("a").resolve("b"));
+    Files.write(deep.resolve("file"), new byte[]{1});
+    Files.write(root.resolve("file"), new byte[]{1});
+    return root;
+  }
+}
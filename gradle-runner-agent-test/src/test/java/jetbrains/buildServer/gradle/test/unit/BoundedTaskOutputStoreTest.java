@@ -0,0 +1,95 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.BoundedTaskOutputStore;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BoundedTaskOutputStoreTest {
+
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  private final TempFiles tempFiles = new TempFiles();
+  private File taskOutputDir;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    taskOutputDir = tempFiles.createTempDir();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_KeepOutputInMemory_When_BudgetIsNotExceeded() {
+    // arrange
+    BoundedTaskOutputStore store = new BoundedTaskOutputStore(taskOutputDir.getAbsolutePath(), 1024, logger);
+
+    // act
+    store.append(":app:compileJava", "error: first");
+    store.append(":lib:compileJava", "warning: other");
+    store.append(":app:compileJava", "error: second");
+
+    // assert
+    assertEquals(store.getLines(":app:compileJava"), Arrays.asList("error: first", "error: second"));
+    assertEquals(store.getLines(":lib:compileJava"), Collections.singletonList("warning: other"));
+    assertEquals(store.getLines(":unknown"), Collections.emptyList());
+    assertEquals(store.getSpilledBytes(), 0);
+    assertEquals(taskOutputDir.listFiles().length, 0);
+  }
+
+  @Test
+  public void should_SpillToSegmentFile_When_BudgetIsExceeded() {
+    // arrange
+    BoundedTaskOutputStore store = new BoundedTaskOutputStore(taskOutputDir.getAbsolutePath(), 16, logger);
+
+    // act
+    store.append(":app:compileJava", "error: first");
+    store.append(":lib:compileJava", "warning: other");
+    store.append(":app:compileJava", "error: second");
+    store.append(":app:compileJava", "error: third");
+
+    // assert
+    assertTrue(store.getSpilledBytes() > 0);
+    assertEquals(taskOutputDir.listFiles().length, 1);
+    assertEquals(store.getLines(":app:compileJava"), Arrays.asList("error: first", "error: second", "error: third"));
+    assertEquals(store.getLines(":lib:compileJava"), Collections.singletonList("warning: other"));
+  }
+
+  @Test
+  public void should_ForgetOutput_When_Closed() {
+    // arrange
+    BoundedTaskOutputStore store = new BoundedTaskOutputStore(taskOutputDir.getAbsolutePath(), 16, logger);
+    store.append(":app:compileJava", "error: first line that does not fit into the budget");
+
+    // act
+    store.close();
+
+    // assert
+    assertEquals(store.getLines(":app:compileJava"), Collections.emptyList());
+  }
+}
@@ -0,0 +1,156 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.service.BuildEnvironmentCache;
+import jetbrains.buildServer.gradle.runtime.service.GradleEnvironmentInfo;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class BuildEnvironmentCacheTest {
+
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  private final TempFiles tempFiles = new TempFiles();
+  private Path projectDir;
+  private Path userHome;
+  private BuildEnvironmentCache cache;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    projectDir = tempFiles.createTempDir().toPath();
+    userHome = tempFiles.createTempDir().toPath();
+    cache = new BuildEnvironmentCache(tempFiles.createTempDir().toPath().resolve("cache"), logger);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_ReturnStoredEnvironment_When_KeyIsTheSame() throws IOException {
+    // arrange
+    Files.write(projectDir.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx1g".getBytes());
+    GradleEnvironmentInfo info = new GradleEnvironmentInfo("8.9", userHome.toString(), Arrays.asList("-Xmx1g", "-Dfile.encoding=UTF-8"));
+    cache.put(computeKey(), info);
+
+    // act
+    Optional<GradleEnvironmentInfo> result = cache.get(computeKey());
+
+    // assert
+    assertTrue(result.isPresent());
+    assertEquals(result.get().getGradleVersion(), "8.9");
+    assertEquals(result.get().getJavaHome(), userHome.toString());
+    assertEquals(result.get().getJvmArguments(), Arrays.asList("-Xmx1g", "-Dfile.encoding=UTF-8"));
+  }
+
+  @Test
+  public void should_ChangeKey_When_GradlePropertiesChanged() throws IOException {
+    // arrange
+    Files.write(projectDir.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx1g".getBytes());
+    String before = computeKey();
+
+    // act
+    Files.write(projectDir.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx2g".getBytes());
+    String after = computeKey();
+
+    // assert
+    assertNotNull(before);
+    assertNotEquals(after, before);
+  }
+
+  @Test
+  public void should_ChangeKey_When_RootBuildGradlePropertiesChanged() throws IOException {
+    // arrange
+    Files.write(projectDir.resolve("settings.gradle"), "include 'app'".getBytes());
+    Files.write(projectDir.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx1g".getBytes());
+    Path subproject = Files.createDirectories(projectDir.resolve("app"));
+    String before = computeKey(subproject, "/opt/gradle");
+
+    // act
+    Files.write(projectDir.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx2g".getBytes());
+    String after = computeKey(subproject, "/opt/gradle");
+
+    // assert
+    assertNotNull(before);
+    assertNotEquals(after, before);
+  }
+
+  @Test
+  public void should_ChangeKey_When_GradleHomeGradlePropertiesChanged() throws IOException {
+    // arrange
+    Path gradleHome = tempFiles.createTempDir().toPath();
+    Files.write(gradleHome.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx1g".getBytes());
+    String before = computeKey(projectDir, gradleHome.toString());
+
+    // act
+    Files.write(gradleHome.resolve("gradle.properties"), "org.gradle.jvmargs=-Xmx2g".getBytes());
+    String after = computeKey(projectDir, gradleHome.toString());
+
+    // assert
+    assertNotNull(before);
+    assertNotEquals(after, before);
+  }
+
+  @Test
+  public void should_NotCache_When_ProjectDirIsPassedAsArgument() {
+    // act
+    String key = cache.computeKey(projectDir.toString(), false, null, "/opt/gradle", Arrays.asList("-p", "app"), null, userHome.toString());
+
+    // assert
+    assertNull(key);
+  }
+
+  @Test
+  public void should_NotCache_When_GradleUserHomeIsPassedAsArgument() {
+    // act
+    String key = cache.computeKey(projectDir.toString(), false, null, "/opt/gradle", Arrays.asList("-g", "/tmp/home"), null, userHome.toString());
+
+    // assert
+    assertNull(key);
+  }
+
+  @Test
+  public void should_MissCache_When_JavaHomeDoesNotExistAnymore() {
+    // arrange
+    String key = computeKey();
+    cache.put(key, new GradleEnvironmentInfo("8.9", userHome.resolve("missing-jdk").toString(), Collections.emptyList()));
+
+    // act
+    Optional<GradleEnvironmentInfo> result = cache.get(key);
+
+    // assert
+    assertFalse(result.isPresent());
+  }
+
+  private String computeKey() {
+    return computeKey(projectDir, "/opt/gradle");
+  }
+
+  private String computeKey(@NotNull Path workingDir, @NotNull String gradleHome) {
+    return cache.computeKey(workingDir.toString(), false, null, gradleHome, Collections.singletonList("--info"), "/opt/jdk", userHome.toString());
+  }
+}
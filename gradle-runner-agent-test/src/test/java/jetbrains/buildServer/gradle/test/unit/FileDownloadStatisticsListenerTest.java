@@ -0,0 +1,64 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildFinishedEventImpl;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildResult;
+import jetbrains.buildServer.gradle.runtime.listening.event.FileDownloadFinishedEventImpl;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.FileDownloadStatisticsListener;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class FileDownloadStatisticsListenerTest {
+
+  private final List<String> messages = new ArrayList<>();
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+      messages.add(message);
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  @Test
+  public void should_ReportAggregatedStatistics_When_BuildFinished() {
+    // arrange
+    FileDownloadStatisticsListener listener = new FileDownloadStatisticsListener(logger);
+    listener.onEvent(new FileDownloadFinishedEventImpl(0, "https://repo/a.jar", 100, 10, false));
+    listener.onEvent(new FileDownloadFinishedEventImpl(0, "https://repo/b.jar", 50, 5, false));
+    listener.onEvent(new FileDownloadFinishedEventImpl(0, "https://repo/c.jar", 0, 1, true));
+
+    // act
+    listener.onEvent(new BuildFinishedEventImpl(0, "Build completed successfully", BuildResult.SUCCEEDED));
+
+    // assert
+    assertEquals(messages.size(), 4);
+    assertTrue(messages.get(0).contains("key='gradle.fileDownloads.count' value='3'"), messages.get(0));
+    assertTrue(messages.get(1).contains("key='gradle.fileDownloads.failed' value='1'"), messages.get(1));
+    assertTrue(messages.get(2).contains("key='gradle.fileDownloads.bytes' value='150'"), messages.get(2));
+    assertTrue(messages.get(3).contains("key='gradle.fileDownloads.durationMs' value='16'"), messages.get(3));
+  }
+
+  @Test
+  public void should_NotReportStatistics_When_NothingWasDownloaded() {
+    // arrange
+    FileDownloadStatisticsListener listener = new FileDownloadStatisticsListener(logger);
+
+    // act
+    listener.onEvent(new BuildFinishedEventImpl(0, "Build completed successfully", BuildResult.SUCCEEDED));
+
+    // assert
+    assertTrue(messages.isEmpty());
+  }
+}
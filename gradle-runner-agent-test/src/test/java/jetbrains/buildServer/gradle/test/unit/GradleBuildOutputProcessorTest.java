@@ -0,0 +1,119 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import jetbrains.buildServer.gradle.runtime.listening.event.*;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.GradleBuildOutputProcessor;
+import jetbrains.buildServer.gradle.runtime.output.OutputType;
+import jetbrains.buildServer.gradle.runtime.output.TaskOutputStore;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class GradleBuildOutputProcessorTest {
+
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  @Test
+  public void should_TrackRunningTasksWithoutBuildingEventIds_When_EventsHaveDescriptors() {
+    // arrange
+    InMemoryTaskOutputStore store = new InMemoryTaskOutputStore();
+    GradleBuildOutputProcessor processor = new GradleBuildOutputProcessor(logger, store);
+    OperationDescriptor compileJava = descriptor(":app:compileJava");
+    OperationDescriptor processResources = descriptor(":app:processResources");
+    Function<OperationDescriptor, String> eventIdFactory = it -> {
+      throw new AssertionError("The event id of " + it.getName() + " is not expected to be built");
+    };
+
+    // act
+    processor.onEvent(new TaskStartedEventImpl(compileJava, eventIdFactory, 0, ":app:compileJava"));
+    processor.onEvent(new TaskStartedEventImpl(processResources, eventIdFactory, 0, ":app:processResources"));
+    processor.onEvent(new TaskFinishedEventImpl(processResources, eventIdFactory, 10, ":app:processResources", new SuccessResultImpl(), 0,
+                                                Collections.emptyList()));
+    processor.onEvent(new TaskOutputEventImpl(20, "error: cannot find symbol", OutputType.STD_ERR));
+
+    // assert
+    assertEquals(store.getLines(":app:compileJava"), Collections.singletonList("error: cannot find symbol"));
+  }
+
+  @Test
+  public void should_AttributeGroupedOutputToAnnouncedTask_When_ItIsPrintedAfterTaskFinished() {
+    // arrange
+    InMemoryTaskOutputStore store = new InMemoryTaskOutputStore();
+    GradleBuildOutputProcessor processor = new GradleBuildOutputProcessor(logger, store);
+    OperationDescriptor compileJava = descriptor(":a:compileJava");
+    OperationDescriptor test = descriptor(":b:test");
+    processor.onEvent(new TaskStartedEventImpl(compileJava, OperationDescriptor::getName, 0, ":a:compileJava"));
+    processor.onEvent(new TaskStartedEventImpl(test, OperationDescriptor::getName, 0, ":b:test"));
+
+    // act
+    processor.onEvent(new TaskFinishedEventImpl(compileJava, OperationDescriptor::getName, 10, ":a:compileJava", new FailureResultImpl(FailureKind.COMPILATION),
+                                                0, Collections.emptyList()));
+    processor.onEvent(new TaskOutputEventImpl(20, "> Task :a:compileJava FAILED", OutputType.STD_OUT));
+    processor.onEvent(new TaskOutputEventImpl(20, "A.java:1: error: cannot find symbol", OutputType.STD_ERR));
+    processor.onEvent(new TaskOutputEventImpl(20, "1 error", OutputType.STD_ERR));
+
+    // assert
+    assertEquals(store.getLines(":a:compileJava"), Arrays.asList("A.java:1: error: cannot find symbol", "1 error"));
+    assertEquals(store.getLines(":b:test"), Collections.emptyList());
+  }
+
+  @NotNull
+  private static OperationDescriptor descriptor(@NotNull String taskPath) {
+    return new OperationDescriptor() {
+      @Override
+      public String getName() {
+        return taskPath;
+      }
+
+      @Override
+      public String getDisplayName() {
+        return "Task " + taskPath;
+      }
+
+      @Override
+      public OperationDescriptor getParent() {
+        return null;
+      }
+    };
+  }
+
+  private static class InMemoryTaskOutputStore implements TaskOutputStore {
+    private final Map<String, List<String>> myLines = new HashMap<>();
+
+    @Override
+    public void append(@NotNull String taskPath, @NotNull String line) {
+      myLines.computeIfAbsent(taskPath, it -> new ArrayList<>()).add(line);
+    }
+
+    @NotNull
+    @Override
+    public List<String> getLines(@NotNull String taskPath) {
+      return myLines.getOrDefault(taskPath, Collections.emptyList());
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
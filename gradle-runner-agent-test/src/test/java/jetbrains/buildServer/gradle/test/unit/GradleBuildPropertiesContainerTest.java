@@ -0,0 +1,128 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.agent.propertySplit.GradleBuildPropertiesContainer;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static jetbrains.buildServer.gradle.agent.propertySplit.SplitPropertiesFilenameBuilder.buildStaticPropertiesFilename;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class GradleBuildPropertiesContainerTest {
+
+  private final TempFiles tempFiles = new TempFiles();
+  private File propertiesFile;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    propertiesFile = new File(tempFiles.createTempDir(), "teamcity.build.parameters");
+
+    Properties staticProperties = new Properties();
+    staticProperties.setProperty("teamcity.build.tempDir", "/tmp");
+    store(staticProperties, new File(buildStaticPropertiesFilename(propertiesFile.getPath())));
+
+    Properties allProperties = new Properties();
+    allProperties.putAll(staticProperties);
+    allProperties.setProperty("build.number", "42");
+    store(allProperties, propertiesFile);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_NotReadDynamicParametersAgain_When_AbsentKeyIsRequested() {
+    // arrange
+    GradleBuildPropertiesContainer container = new GradleBuildPropertiesContainer(propertiesFile.getPath(), false);
+    assertEquals(container.get("build.number"), "42");
+
+    // act
+    // the file can't be read anymore, so only a cached negative result can answer the lookup
+    propertiesFile.delete();
+    Object absent = container.get("absent.parameter");
+
+    // assert
+    assertNull(absent);
+  }
+
+  @Test
+  public void should_AnswerAbsentKeyWithoutLocking_When_DynamicParametersAreRead() throws Exception {
+    // arrange
+    GradleBuildPropertiesContainer container = new GradleBuildPropertiesContainer(propertiesFile.getPath(), false);
+    assertEquals(container.get("build.number"), "42");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    try {
+      executor.submit(() -> {
+        synchronized (container) {
+          locked.countDown();
+          release.await();
+        }
+        return null;
+      });
+      assertTrue(locked.await(30, TimeUnit.SECONDS));
+
+      // act
+      // the container monitor is held by another thread, so the lookup completes only if it doesn't take the lock
+      Future<Object> absent = executor.submit(() -> container.get("absent.parameter"));
+
+      // assert
+      assertNull(absent.get(5, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void should_ReturnSameValues_When_LookedUpInParallel() throws Exception {
+    // arrange
+    GradleBuildPropertiesContainer container = new GradleBuildPropertiesContainer(propertiesFile.getPath(), false);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+
+    try {
+      // act
+      List<Future<Object[]>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return new Object[]{container.get("absent.parameter"), container.get("build.number"), container.get("teamcity.build.tempDir")};
+        }));
+      }
+      start.countDown();
+
+      // assert
+      for (Future<Object[]> result : results) {
+        Object[] values = result.get(30, TimeUnit.SECONDS);
+        assertNull(values[0]);
+        assertEquals(values[1], "42");
+        assertEquals(values[2], "/tmp");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void store(@NotNull Properties properties, @NotNull File file) throws IOException {
+    try (OutputStream output = new FileOutputStream(file)) {
+      properties.store(output, null);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import jetbrains.buildServer.gradle.runtime.listening.event.TaskStartedEventImpl;
+import jetbrains.buildServer.gradle.runtime.service.GradleEventIdFactory;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class GradleEventIdFactoryTest {
+
+  @Test
+  public void should_ComposeIdFromWholeAncestorChain_When_TaskIsNested() {
+    // arrange
+    GradleEventIdFactory factory = new GradleEventIdFactory("GradleTAPIBuild-42");
+    OperationDescriptor root = descriptor("Run build", null);
+    OperationDescriptor runTasks = descriptor("Run tasks", root);
+
+    // act
+    String first = factory.createEventId(descriptor("Task :app:compileJava", runTasks));
+    String second = factory.createEventId(descriptor("Task :app:test", runTasks));
+
+    // assert
+    assertEquals(first, "[GradleTAPIBuild-42] > [Task :app:compileJava] > [Run tasks] > [Run build]");
+    assertEquals(second, "[GradleTAPIBuild-42] > [Task :app:test] > [Run tasks] > [Run build]");
+  }
+
+  @Test
+  public void should_ComposeId_When_DescriptorHasNoParent() {
+    // arrange
+    GradleEventIdFactory factory = new GradleEventIdFactory("GradleTAPIBuild-42");
+
+    // act
+    String id = factory.createEventId(descriptor("Run build", null));
+
+    // assert
+    assertEquals(id, "[GradleTAPIBuild-42] > [Run build]");
+  }
+
+  @Test
+  public void should_CreateIdOnce_When_EventIdIsRequested() {
+    // arrange
+    int[] calls = new int[1];
+    OperationDescriptor descriptor = descriptor("Task :app:compileJava", null);
+    TaskStartedEventImpl event = new TaskStartedEventImpl(descriptor, it -> {
+      calls[0]++;
+      return "id";
+    }, 0, ":app:compileJava");
+
+    // act
+    String first = event.getId();
+    String second = event.getId();
+
+    // assert
+    assertEquals(calls[0], 1);
+    assertSame(first, second);
+    assertSame(event.getDescriptor(), descriptor);
+  }
+
+  @NotNull
+  private static OperationDescriptor descriptor(@NotNull String displayName, @Nullable OperationDescriptor parent) {
+    return new OperationDescriptor() {
+      @Override
+      public String getName() {
+        return displayName;
+      }
+
+      @Override
+      public String getDisplayName() {
+        return displayName;
+      }
+
+      @Override
+      public OperationDescriptor getParent() {
+        return parent;
+      }
+    };
+  }
+}
@@ -0,0 +1,122 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.agent.gradleOptions.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class GradleOptionsSnapshotTest {
+
+  private final TempFiles tempFiles = new TempFiles();
+  private final GradleOptionValueFetcher fetcher = new GradleOptionValueFetcher();
+  private File projectDir;
+  private File gradleUserHomeDir;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    projectDir = tempFiles.createTempDir();
+    gradleUserHomeDir = tempFiles.createTempDir();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_ReportGradleUserHome_When_OptionIsSetThereAndInProjectDir() throws IOException {
+    // arrange
+    File userHomeProperties = createGradleProperties(gradleUserHomeDir, "org.gradle.configuration-cache=true");
+    createGradleProperties(projectDir, "org.gradle.configuration-cache=false");
+    GradleOptionsSnapshot snapshot = fetcher.createSnapshot(Arrays.asList("build"), Collections.emptyList(), gradleUserHomeDir, projectDir);
+
+    // act
+    Optional<GradleOptionValue> result = fetchConfigurationCache(snapshot);
+
+    // assert
+    assertTrue(result.isPresent());
+    assertEquals(result.get().getValue(), "true");
+    assertEquals(result.get().getSource(), GradleOptionSource.GRADLE_USER_HOME_PROPERTIES);
+    assertEquals(result.get().getOptionName(), "org.gradle.configuration-cache");
+    assertEquals(result.get().getFile(), userHomeProperties);
+  }
+
+  @Test
+  public void should_ReportCommandLine_When_OptionIsPassedThroughCommandLine() throws IOException {
+    // arrange
+    createGradleProperties(projectDir, "org.gradle.configuration-cache=true");
+    GradleOptionsSnapshot snapshot = fetcher.createSnapshot(Arrays.asList("build"), Arrays.asList("--no-configuration-cache"), null, projectDir);
+
+    // act
+    Optional<GradleOptionValue> result = fetchConfigurationCache(snapshot);
+
+    // assert
+    assertTrue(result.isPresent());
+    assertEquals(result.get().getValue(), "false");
+    assertEquals(result.get().getSource(), GradleOptionSource.COMMAND_LINE);
+    assertEquals(result.get().getOptionName(), "--no-configuration-cache");
+    assertNull(result.get().getFile());
+  }
+
+  @Test
+  public void should_NotReadPropertiesFileAgain_When_SeveralOptionsAreFetched() throws IOException {
+    // arrange
+    File projectProperties = createGradleProperties(projectDir, "org.gradle.configuration-cache=true\norg.gradle.configuration-cache.problems=warn");
+    GradleOptionsSnapshot snapshot = fetcher.createSnapshot(Arrays.asList("build"), Collections.emptyList(), null, projectDir);
+    fetchConfigurationCache(snapshot);
+    Files.delete(projectProperties.toPath());
+
+    // act
+    Optional<GradleOptionValue> result = snapshot.fetchOptionValue(GradleOptionType.KEY_VALUE,
+                                                                   Arrays.asList("--configuration-cache-problems"),
+                                                                   Collections.emptyList(),
+                                                                   Arrays.asList("org.gradle.configuration-cache.problems"));
+
+    // assert
+    assertTrue(result.isPresent());
+    assertEquals(result.get().getValue(), "warn");
+    assertEquals(result.get().getSource(), GradleOptionSource.PROJECT_PROPERTIES);
+  }
+
+  @Test
+  public void should_ReturnFirstKeyValueOption_When_PassedSeveralTimesInDifferentForms() {
+    // arrange
+    GradleOptionsSnapshot snapshot = fetcher.createSnapshot(Arrays.asList("build", "--warning-mode", "all"),
+                                                            Arrays.asList("--warning-mode=none", "-Dkey=value"),
+                                                            null, projectDir);
+
+    // act
+    Optional<GradleOptionValue> result = snapshot.fetchOptionValue(GradleOptionType.KEY_VALUE,
+                                                                   Arrays.asList("--warning-mode"),
+                                                                   Collections.emptyList(),
+                                                                   Collections.emptyList());
+
+    // assert
+    assertTrue(result.isPresent());
+    assertEquals(result.get().getValue(), "all");
+    assertEquals(snapshot.getCommandLineArguments(), Arrays.asList("build", "--warning-mode", "all", "--warning-mode=none", "-Dkey=value"));
+  }
+
+  private Optional<GradleOptionValue> fetchConfigurationCache(GradleOptionsSnapshot snapshot) {
+    return snapshot.fetchOptionValue(GradleOptionType.BOOLEAN,
+                                     Arrays.asList("--configuration-cache"),
+                                     Arrays.asList("--no-configuration-cache"),
+                                     Arrays.asList("org.gradle.configuration-cache", "org.gradle.unsafe.configuration-cache"));
+  }
+
+  private File createGradleProperties(File directory, String content) throws IOException {
+    File gradleProperties = new File(directory, "gradle.properties");
+    Files.write(gradleProperties.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return gradleProperties;
+  }
+}
@@ -0,0 +1,137 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jetbrains.buildServer.gradle.runtime.listening.BuildLifecycleListener;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.TaskOutputEvent;
+import jetbrains.buildServer.gradle.runtime.output.GradleOutputWrapper;
+import jetbrains.buildServer.gradle.runtime.output.OutputType;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class GradleOutputWrapperTest {
+
+  private List<String> lines;
+  private ByteArrayOutputStream delegate;
+  private GradleOutputWrapper wrapper;
+
+  @BeforeMethod
+  public void setUp() {
+    lines = new ArrayList<>();
+    delegate = new ByteArrayOutputStream();
+    wrapper = new GradleOutputWrapper(new RecordingListener(lines), OutputType.STD_ERR, delegate);
+  }
+
+  @Test
+  public void should_ReportCompleteLines_When_WrittenInOneChunk() throws IOException {
+    // arrange
+    byte[] output = "> Task :compileJava\r\nerror: foo\nBUILD FAILED\n".getBytes(StandardCharsets.UTF_8);
+
+    // act
+    wrapper.write(output, 0, output.length);
+    wrapper.flush();
+
+    // assert
+    assertEquals(lines, Arrays.asList("> Task :compileJava", "error: foo", "BUILD FAILED"));
+    assertEquals(delegate.toByteArray(), output);
+  }
+
+  @Test
+  public void should_KeepPartialLine_Until_LineIsTerminated() throws IOException {
+    // arrange
+    byte[] first = "> Task :com".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "pileJava\nnext".getBytes(StandardCharsets.UTF_8);
+
+    // act
+    wrapper.write(first, 0, first.length);
+    wrapper.flush();
+    List<String> afterFirstWrite = new ArrayList<>(lines);
+    wrapper.write(second, 0, second.length);
+    wrapper.flush();
+
+    // assert
+    assertEquals(afterFirstWrite, Arrays.asList());
+    assertEquals(lines, Arrays.asList("> Task :compileJava"));
+  }
+
+  @Test
+  public void should_DecodeMultibyteCharacter_When_SplitBetweenWrites() throws IOException {
+    // arrange
+    byte[] output = "caf\u00e9 \u2713 \ud83d\ude00\n".getBytes(StandardCharsets.UTF_8);
+
+    // act
+    for (byte b : output) {
+      wrapper.write(b);
+    }
+
+    // assert
+    assertEquals(lines, Arrays.asList("caf\u00e9 \u2713 \ud83d\ude00"));
+  }
+
+  @Test
+  public void should_ReportUnterminatedLine_When_Closed() throws IOException {
+    // arrange
+    byte[] output = "first\nlast".getBytes(StandardCharsets.UTF_8);
+
+    // act
+    wrapper.write(output, 0, output.length);
+    wrapper.close();
+
+    // assert
+    assertEquals(lines, Arrays.asList("first", "last"));
+  }
+
+  @Test
+  public void should_ReportLongLine_When_LongerThanInternalBuffer() throws IOException {
+    // arrange
+    StringBuilder longLine = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      longLine.append(i % 10);
+    }
+    byte[] output = (longLine + "\n").getBytes(StandardCharsets.UTF_8);
+
+    // act
+    wrapper.write(output, 0, output.length);
+
+    // assert
+    assertEquals(lines, Arrays.asList(longLine.toString()));
+  }
+
+  private static class RecordingListener implements BuildLifecycleListener {
+
+    private final List<String> myLines;
+
+    private RecordingListener(List<String> lines) {
+      myLines = lines;
+    }
+
+    @Override
+    public void onStart(@NotNull BuildEvent event) {
+    }
+
+    @Override
+    public void onTaskOutput(@NotNull TaskOutputEvent event) {
+      myLines.add(event.getMessage());
+    }
+
+    @Override
+    public void onStatusChange(@NotNull BuildEvent event) {
+    }
+
+    @Override
+    public void onSuccess() {
+    }
+
+    @Override
+    public void onFail() {
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.agent.GradleRunnerFileUtil;
+import jetbrains.buildServer.gradle.agent.propertySplit.GradleBuildProperties;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class GradleRunnerFileUtilTest {
+
+  private final TempFiles tempFiles = new TempFiles();
+  private File buildTempDir;
+  private File destination;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    buildTempDir = tempFiles.createTempDir();
+    destination = new File(buildTempDir, "teamcity.build.static.properties");
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_NotRewriteFile_When_PropertiesAreTheSame() throws IOException {
+    // arrange
+    GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("value"), destination);
+    assertTrue(destination.setLastModified(1_000_000L));
+
+    // act
+    boolean written = GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("value"), destination);
+
+    // assert
+    assertFalse(written);
+    assertEquals(destination.lastModified(), 1_000_000L);
+  }
+
+  @Test
+  public void should_RewriteFile_When_PropertiesChanged() throws IOException {
+    // arrange
+    GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("value"), destination);
+    assertTrue(destination.setLastModified(1_000_000L));
+
+    // act
+    boolean written = GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("changed"), destination);
+
+    // assert
+    assertTrue(written);
+    assertNotEquals(destination.lastModified(), 1_000_000L);
+    GradleBuildProperties stored = new GradleBuildProperties();
+    try (FileInputStream input = new FileInputStream(destination)) {
+      stored.load(input);
+    }
+    assertEquals(stored.getProperty("teamcity.build.checkoutDir"), "changed");
+  }
+
+  @Test
+  public void should_RewriteFile_When_PropertiesOfSameSizeChanged() throws IOException {
+    // arrange
+    GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("value"), destination);
+    long length = destination.length();
+
+    // act
+    boolean written = GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("other"), destination);
+
+    // assert
+    assertTrue(written);
+    assertEquals(destination.length(), length);
+    GradleBuildProperties stored = new GradleBuildProperties();
+    try (FileInputStream input = new FileInputStream(destination)) {
+      stored.load(input);
+    }
+    assertEquals(stored.getProperty("teamcity.build.checkoutDir"), "other");
+  }
+
+  @Test
+  public void should_WriteFile_When_ItDoesNotExist() throws IOException {
+    // act
+    boolean written = GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties("value"), destination);
+
+    // assert
+    assertTrue(written);
+    assertTrue(destination.isFile());
+  }
+
+  private static GradleBuildProperties properties(String checkoutDir) {
+    GradleBuildProperties properties = new GradleBuildProperties();
+    properties.setProperty("teamcity.build.checkoutDir", checkoutDir);
+    properties.setProperty("agent.name", "agent");
+    return properties;
+  }
+}
@@ -0,0 +1,232 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.GradleToolingApiTestReporter;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.gradle.tooling.events.test.Destination;
+import org.gradle.tooling.events.test.JvmTestKind;
+import org.gradle.tooling.events.test.JvmTestOperationDescriptor;
+import org.gradle.tooling.events.test.TestOutputDescriptor;
+import org.gradle.tooling.events.test.TestOutputEvent;
+import org.gradle.tooling.events.test.TestStartEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class GradleToolingApiTestReporterTest {
+
+  private static final Pattern FLOW_ID = Pattern.compile("flowId='([^']*)'");
+
+  private final List<String> messages = new ArrayList<>();
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+      messages.add(message);
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  @BeforeMethod
+  public void setUp() {
+    messages.clear();
+  }
+
+  @Test
+  public void should_ReportTestClassesInDifferentFlows_When_TheirKeysHaveSameHashCode() {
+    // arrange
+    GradleToolingApiTestReporter reporter = new GradleToolingApiTestReporter(logger);
+    TestDescriptor worker = new TestDescriptor("Gradle Test Executor 1", JvmTestKind.SUITE, null, null, null);
+    // "Aa" and "BB" have the same hash code
+    TestDescriptor first = new TestDescriptor("Aa", JvmTestKind.SUITE, "Aa", null, worker);
+    TestDescriptor second = new TestDescriptor("BB", JvmTestKind.SUITE, "BB", null, worker);
+
+    // act
+    reporter.onEvent(started(first));
+    reporter.onEvent(started(second));
+
+    // assert
+    assertEquals(messages.size(), 2);
+    assertNotEquals(getFlowId(messages.get(0)), getFlowId(messages.get(1)));
+  }
+
+  @Test
+  public void should_ReportTestInFlowOfItsClass_When_TestStarted() {
+    // arrange
+    GradleToolingApiTestReporter reporter = new GradleToolingApiTestReporter(logger);
+    TestDescriptor testClass = new TestDescriptor("Test", JvmTestKind.SUITE, "Test", null, null);
+    TestDescriptor test = new TestDescriptor("test", JvmTestKind.ATOMIC, "Test", "test", testClass);
+
+    // act
+    reporter.onEvent(started(testClass));
+    reporter.onEvent(started(test));
+
+    // assert
+    assertEquals(messages.size(), 2);
+    assertEquals(getFlowId(messages.get(1)), getFlowId(messages.get(0)));
+  }
+
+  @Test
+  public void should_ReportOnlyStdErr_When_StdOutIsIgnored() {
+    // arrange
+    GradleToolingApiTestReporter reporter = new GradleToolingApiTestReporter(logger, true, false);
+    TestDescriptor testClass = new TestDescriptor("Test", JvmTestKind.SUITE, "Test", null, null);
+    TestDescriptor test = new TestDescriptor("test", JvmTestKind.ATOMIC, "Test", "test", testClass);
+
+    // act
+    reporter.onEvent(output(test, Destination.StdOut, "out\n"));
+    reporter.onEvent(output(test, Destination.StdErr, "err\n"));
+
+    // assert
+    assertEquals(messages.size(), 1);
+    assertTrue(messages.get(0).startsWith("##teamcity[testStdErr"), messages.get(0));
+    assertTrue(messages.get(0).contains("out='err'"), messages.get(0));
+  }
+
+  @NotNull
+  private static String getFlowId(@NotNull String message) {
+    Matcher matcher = FLOW_ID.matcher(message);
+    if (!matcher.find()) throw new AssertionError("No flowId in " + message);
+    return matcher.group(1);
+  }
+
+  @NotNull
+  private static TestStartEvent started(@NotNull TestDescriptor descriptor) {
+    return new TestStartEvent() {
+      @Override
+      public long getEventTime() {
+        return 0;
+      }
+
+      @Override
+      public String getDisplayName() {
+        return descriptor.getDisplayName() + " started";
+      }
+
+      @Override
+      public JvmTestOperationDescriptor getDescriptor() {
+        return descriptor;
+      }
+    };
+  }
+
+  @NotNull
+  private static TestOutputEvent output(@NotNull TestDescriptor test, @NotNull Destination destination, @NotNull String message) {
+    TestOutputDescriptor descriptor = new TestOutputDescriptor() {
+      @Override
+      public Destination getDestination() {
+        return destination;
+      }
+
+      @Override
+      public String getMessage() {
+        return message;
+      }
+
+      @Override
+      public String getName() {
+        return "output";
+      }
+
+      @Override
+      public String getDisplayName() {
+        return "output";
+      }
+
+      @Override
+      public OperationDescriptor getParent() {
+        return test;
+      }
+    };
+    return new TestOutputEvent() {
+      @Override
+      public long getEventTime() {
+        return 0;
+      }
+
+      @Override
+      public String getDisplayName() {
+        return message;
+      }
+
+      @Override
+      public TestOutputDescriptor getDescriptor() {
+        return descriptor;
+      }
+    };
+  }
+
+  private static class TestDescriptor implements JvmTestOperationDescriptor {
+    private final String myName;
+    private final JvmTestKind myKind;
+    private final String myClassName;
+    private final String myMethodName;
+    private final OperationDescriptor myParent;
+
+    private TestDescriptor(@NotNull String name,
+                           @NotNull JvmTestKind kind,
+                           @Nullable String className,
+                           @Nullable String methodName,
+                           @Nullable OperationDescriptor parent) {
+      myName = name;
+      myKind = kind;
+      myClassName = className;
+      myMethodName = methodName;
+      myParent = parent;
+    }
+
+    @Override
+    public JvmTestKind getJvmTestKind() {
+      return myKind;
+    }
+
+    @Override
+    public String getSuiteName() {
+      return myKind == JvmTestKind.SUITE ? myName : null;
+    }
+
+    @Override
+    public String getClassName() {
+      return myClassName;
+    }
+
+    @Override
+    public String getMethodName() {
+      return myMethodName;
+    }
+
+    public String getTestDisplayName() {
+      return myName;
+    }
+
+    @Override
+    public String getName() {
+      return myName;
+    }
+
+    @Override
+    public String getDisplayName() {
+      return myName;
+    }
+
+    @Override
+    public OperationDescriptor getParent() {
+      return myParent;
+    }
+  }
+}
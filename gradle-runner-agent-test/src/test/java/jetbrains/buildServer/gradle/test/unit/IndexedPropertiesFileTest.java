@@ -0,0 +1,114 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.agent.propertySplit.IndexedPropertiesFile;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class IndexedPropertiesFileTest {
+
+  private final TempFiles tempFiles = new TempFiles();
+  private File propertiesFile;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    propertiesFile = new File(tempFiles.createTempDir(), "teamcity.build.parameters");
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_LookUpEveryKey_When_SidecarIsMapped() throws IOException {
+    // arrange
+    Properties properties = new Properties();
+    for (int i = 0; i < 1000; i++) {
+      properties.setProperty("param." + i, "value " + i);
+    }
+    properties.setProperty("teamcity.build.tempDir", "/tmp/build \u0442\u0435\u043c\u043f");
+    properties.setProperty("empty", "");
+    store(properties);
+
+    // act
+    IndexedPropertiesFile.write(properties, propertiesFile);
+    IndexedPropertiesFile indexed = IndexedPropertiesFile.map(propertiesFile);
+
+    // assert
+    assertNotNull(indexed);
+    assertEquals(indexed.size(), properties.size());
+    for (String key : properties.stringPropertyNames()) {
+      assertEquals(indexed.get(key), properties.getProperty(key), key);
+    }
+    assertNull(indexed.get("param.1000"));
+    assertNull(indexed.get("param"));
+  }
+
+  @Test
+  public void should_ReadAllEntries_When_SidecarIsLoaded() throws IOException {
+    // arrange
+    Properties properties = new Properties();
+    properties.setProperty("build.number", "42");
+    properties.setProperty("agent.name", "agent");
+    store(properties);
+    IndexedPropertiesFile.write(properties, propertiesFile);
+
+    // act
+    IndexedPropertiesFile indexed = IndexedPropertiesFile.load(propertiesFile);
+    Map<String, String> entries = new HashMap<>();
+    indexed.forEach(entries::put);
+
+    // assert
+    assertEquals(entries.size(), 2);
+    assertEquals(entries.get("build.number"), "42");
+    assertEquals(entries.get("agent.name"), "agent");
+  }
+
+  @Test
+  public void should_IgnoreSidecar_When_PropertiesFileChanged() throws IOException {
+    // arrange
+    Properties properties = new Properties();
+    properties.setProperty("build.number", "42");
+    store(properties);
+    IndexedPropertiesFile.write(properties, propertiesFile);
+
+    // act
+    properties.setProperty("build.number", "43");
+    properties.setProperty("build.vcs.number", "abc");
+    store(properties);
+
+    // assert
+    assertNull(IndexedPropertiesFile.map(propertiesFile));
+    assertNull(IndexedPropertiesFile.load(propertiesFile));
+  }
+
+  @Test
+  public void should_ReturnNull_When_SidecarIsMissing() throws IOException {
+    // arrange
+    store(new Properties());
+
+    // act
+    IndexedPropertiesFile indexed = IndexedPropertiesFile.map(propertiesFile);
+
+    // assert
+    assertNull(indexed);
+  }
+
+  private void store(@NotNull Properties properties) throws IOException {
+    try (OutputStream output = new FileOutputStream(propertiesFile)) {
+      properties.store(output, null);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.runtime.LauncherParameters;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class LauncherParametersTest {
+
+  private final TempFiles tempFiles = new TempFiles();
+  private Path tempDir;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    tempDir = tempFiles.createTempDir().toPath();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    tempFiles.cleanup();
+  }
+
+  @Test
+  public void should_ReadAllLists_When_StoredInBinaryFile() throws IOException {
+    // arrange
+    Path file = tempDir.resolve("launcher.parameters");
+    List<String> gradleParams = Arrays.asList("--init-script", "/tmp/init.gradle", "-Dkey=\u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435");
+    List<String> jvmArgs = Collections.emptyList();
+    List<String> tasks = Arrays.asList("clean", "build", "");
+
+    // act
+    LauncherParameters.writeToBinaryFile(file,
+                                         LauncherParameters.fromValues(gradleParams),
+                                         LauncherParameters.fromValues(jvmArgs),
+                                         LauncherParameters.fromValues(tasks));
+    List<LauncherParameters> result = LauncherParameters.fromBinaryFile(file);
+
+    // assert
+    assertEquals(result.size(), 3);
+    assertEquals(result.get(0).get(), gradleParams);
+    assertEquals(result.get(1).get(), jvmArgs);
+    assertEquals(result.get(2).get(), tasks);
+  }
+
+  @Test
+  public void should_ReadList_When_StoredInJsonFile() throws IOException {
+    // arrange
+    Path file = tempDir.resolve("teamcity.gradle.tasks");
+    Files.write(file, "[\n  \"clean\",\n  \"build\"\n]".getBytes());
+
+    // act
+    List<String> result = LauncherParameters.fromFile(file).get();
+
+    // assert
+    assertEquals(result, Arrays.asList("clean", "build"));
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void should_Fail_When_BinaryFileHasUnknownFormat() throws IOException {
+    // arrange
+    Path file = tempDir.resolve("launcher.parameters");
+    Files.write(file, "[\"clean\"]".getBytes());
+
+    // act
+    LauncherParameters.fromBinaryFile(file);
+  }
+
+  @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Failed to read Gradle launcher parameters from .*launcher\\.parameters")
+  public void should_Fail_When_BinaryFileHasTooLargeCount() throws IOException {
+    // arrange
+    Path file = tempDir.resolve("launcher.parameters");
+    LauncherParameters.writeToBinaryFile(file, LauncherParameters.fromValues(Collections.singletonList("build")));
+    byte[] content = Files.readAllBytes(file);
+    // the value count of the first list
+    ByteBuffer.wrap(content).putInt(12, Integer.MAX_VALUE);
+    Files.write(file, content);
+
+    // act
+    LauncherParameters.fromBinaryFile(file);
+  }
+
+  @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Failed to read Gradle launcher parameters from .*launcher\\.parameters")
+  public void should_Fail_When_BinaryFileIsTruncated() throws IOException {
+    // arrange
+    Path file = tempDir.resolve("launcher.parameters");
+    LauncherParameters.writeToBinaryFile(file, LauncherParameters.fromValues(Arrays.asList("clean", "build")));
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 3));
+
+    // act
+    LauncherParameters.fromBinaryFile(file);
+  }
+}
@@ -0,0 +1,64 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jetbrains.buildServer.gradle.runtime.LauncherStartupPhases;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class LauncherStartupPhasesTest {
+
+  @Test
+  public void should_RunIndependentPhasesConcurrently_When_Started() throws Exception {
+    // arrange
+    CountDownLatch bothStarted = new CountDownLatch(2);
+
+    try (LauncherStartupPhases startup = new LauncherStartupPhases()) {
+      // act
+      CompletableFuture<Boolean> first = startup.run("first", () -> awaitOther(bothStarted));
+      CompletableFuture<Boolean> second = startup.run("second", () -> awaitOther(bothStarted));
+
+      // assert
+      assertTrue(first.get(30, TimeUnit.SECONDS));
+      assertTrue(second.get(30, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void should_DescribePhasesInStartOrder_When_PhasesCompleted() {
+    // arrange
+    try (LauncherStartupPhases startup = new LauncherStartupPhases()) {
+      CompletableFuture<String> params = startup.run("read parameters", () -> "-d");
+      CompletableFuture<Integer> dependent = startup.then("parse parameters", params, String::length);
+      CompletableFuture<Integer> combined = startup.then("combine", params, dependent, (value, length) -> value.length() + length);
+
+      // act
+      int result = LauncherStartupPhases.await(combined);
+      String timings = startup.describeTimings();
+
+      // assert
+      assertEquals(result, 4);
+      assertTrue(timings.matches("read parameters \\d+ ms, parse parameters \\d+ ms, combine \\d+ ms"), timings);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "broken")
+  public void should_RethrowPhaseException_When_Awaited() {
+    try (LauncherStartupPhases startup = new LauncherStartupPhases()) {
+      LauncherStartupPhases.await(startup.run("broken", () -> {
+        throw new IllegalStateException("broken");
+      }));
+    }
+  }
+
+  private static boolean awaitOther(CountDownLatch bothStarted) {
+    bothStarted.countDown();
+    try {
+      return bothStarted.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jetbrains.buildServer.gradle.runtime.output.ServiceMessageEncoder;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class ServiceMessageEncoderTest {
+
+  @Test
+  public void should_WriteTagsFirstAndFlowIdWithParentLast_When_AttributesAreInAnyOrder() {
+    // arrange
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("parent", "root");
+    attributes.put("flowId", "flow-1");
+    attributes.put("name", "test");
+    attributes.put("tc:tags", "tc:parseServiceMessagesInside");
+    attributes.put("out", "output");
+
+    // act
+    String message = ServiceMessageEncoder.encode("testStdOut", attributes);
+
+    // assert
+    assertEquals(message, "##teamcity[testStdOut tc:tags='tc:parseServiceMessagesInside' name='test' out='output' flowId='flow-1' parent='root']");
+  }
+
+  @Test
+  public void should_EscapeSpecialAndNonAsciiCharacters_When_ValueContainsThem() {
+    // arrange
+    Map<String, Object> attributes = Collections.singletonMap("text", "a\nb\r|c'[d]\u00e9\u4e2d\t");
+
+    // act
+    String message = ServiceMessageEncoder.encode("message", attributes);
+
+    // assert
+    assertEquals(message, "##teamcity[message text='a|nb|r||c|'|[d|]|0x00e9|0x4e2d\t']");
+  }
+
+  @Test
+  public void should_WriteSingleValueForm_When_EmptyAttributeIsSet() {
+    // arrange
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("", "/tmp/a.log => .teamcity/gradle");
+    attributes.put("flowId", "flow-1");
+
+    // act
+    String message = ServiceMessageEncoder.encode("publishArtifacts", attributes);
+
+    // assert
+    assertEquals(message, "##teamcity[publishArtifacts '/tmp/a.log => .teamcity/gradle']");
+  }
+
+  @Test
+  public void should_WriteNameOnly_When_NoAttributes() {
+    // act
+    String message = ServiceMessageEncoder.encode("compilationStarted", null);
+
+    // assert
+    assertEquals(message, "##teamcity[compilationStarted]");
+  }
+
+  @Test
+  public void should_WriteSameMessage_When_WritingDirectlyToOutput() throws IOException {
+    // arrange
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("name", "Test.test[1]");
+    attributes.put("duration", 12);
+    StringBuilder output = new StringBuilder("prefix ");
+
+    // act
+    ServiceMessageEncoder.write(output, "testFinished", attributes);
+
+    // assert
+    assertEquals(output.toString(), "prefix " + ServiceMessageEncoder.encode("testFinished", attributes));
+    assertEquals(output.toString(), "prefix ##teamcity[testFinished name='Test.test|[1|]' duration='12']");
+  }
+
+  @Test
+  public void should_NotKeepPreviousContent_When_EncodingAfterLargeMessage() {
+    // arrange
+    StringBuilder largeValue = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      largeValue.append('x');
+    }
+    ServiceMessageEncoder.encode("testStdOut", Collections.singletonMap("out", largeValue.toString()));
+
+    // act
+    String message = ServiceMessageEncoder.encode("testStarted", Collections.singletonMap("name", "test"));
+
+    // assert
+    assertEquals(message, "##teamcity[testStarted name='test']");
+  }
+}
@@ -0,0 +1,129 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import jetbrains.buildServer.gradle.runtime.listening.event.*;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.TaskExecutionStatisticsListener;
+import org.jetbrains.annotations.NotNull;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TaskExecutionStatisticsListenerTest {
+
+  private final List<String> messages = new ArrayList<>();
+  private final GradleToolingLogger logger = new GradleToolingLogger() {
+    @Override
+    public void debug(@NotNull String message) {
+    }
+
+    @Override
+    public void lifecycle(@NotNull String message) {
+      messages.add(message);
+    }
+
+    @Override
+    public void warn(@NotNull String message) {
+    }
+  };
+
+  @BeforeMethod
+  public void setUp() {
+    messages.clear();
+  }
+
+  @Test
+  public void should_ReportTaskStatistics_When_BuildFinished() {
+    // arrange
+    TaskExecutionStatisticsListener listener = new TaskExecutionStatisticsListener(logger);
+    listener.onEvent(started(":lib:compileJava"));
+    listener.onEvent(started(":app:processResources"));
+    listener.onEvent(finished(":app:processResources", 1000, 1010, new SuccessResultImpl(true, false)));
+    listener.onEvent(finished(":lib:compileJava", 1000, 3000, new SuccessResultImpl()));
+    listener.onEvent(started(":app:compileJava"));
+    listener.onEvent(finished(":app:compileJava", 3000, 4500, new SuccessResultImpl(true, true), ":lib:compileJava", ":app:processResources"));
+    listener.onEvent(started(":app:test"));
+    listener.onEvent(finished(":app:test", 4500, 4500, new SkippedResultImpl(), ":app:compileJava"));
+
+    // act
+    listener.onEvent(new BuildFinishedEventImpl(5000, "Build completed successfully", BuildResult.SUCCEEDED));
+
+    // assert
+    assertReported("gradle.tasks.count", "4");
+    assertReported("gradle.tasks.executedRatio", "0.250");
+    assertReported("gradle.tasks.upToDateRatio", "0.250");
+    assertReported("gradle.tasks.fromCacheRatio", "0.250");
+    assertReported("gradle.tasks.totalTimeMs", "3510");
+    assertReported("gradle.tasks.criticalPathMs", "3500");
+    assertReported("gradle.tasks.peakConcurrency", "2");
+    assertReported("gradle.task.:lib:compileJava.timeMs", "2000");
+    assertFalse(messages.stream().anyMatch(it -> it.contains("gradle.task.:app:compileJava.timeMs")), messages.toString());
+  }
+
+  @Test
+  public void should_ReportOnlySlowestTasks_When_MoreTasksTookLongerThanMinimum() {
+    // arrange
+    TaskExecutionStatisticsListener listener = new TaskExecutionStatisticsListener(logger, 2);
+    long[] times = {3000, 1000, 5000, 2000, 4000};
+    for (int i = 0; i < times.length; i++) {
+      listener.onEvent(started(":p" + i + ":test"));
+      listener.onEvent(finished(":p" + i + ":test", 1000, 1000 + times[i], new SuccessResultImpl()));
+    }
+
+    // act
+    listener.onEvent(new BuildFinishedEventImpl(6000, "Build completed successfully", BuildResult.SUCCEEDED));
+
+    // assert
+    assertReported("gradle.task.:p2:test.timeMs", "5000");
+    assertReported("gradle.task.:p4:test.timeMs", "4000");
+    assertEquals(messages.stream().filter(it -> it.contains("key='gradle.task.:")).count(), 2, messages.toString());
+  }
+
+  @Test
+  public void should_NotReportStatistics_When_NoTasksWereFinished() {
+    // arrange
+    TaskExecutionStatisticsListener listener = new TaskExecutionStatisticsListener(logger);
+
+    // act
+    listener.onEvent(new BuildFinishedEventImpl(0, "Build failed", BuildResult.FAILED));
+
+    // assert
+    assertTrue(messages.isEmpty());
+  }
+
+  private void assertReported(@NotNull String key, @NotNull String value) {
+    String expected = "key='" + key + "' value='" + value + "'";
+    assertTrue(messages.stream().anyMatch(it -> it.contains(expected)), expected + " not found in " + messages);
+  }
+
+  @NotNull
+  private static TaskStartedEvent started(@NotNull String taskPath) {
+    return new TaskStartedEventImpl(taskPath, 0, taskPath);
+  }
+
+  @NotNull
+  private static TaskFinishedEvent finished(@NotNull String taskPath, long start, long end, @NotNull EventResult result, String... dependencies) {
+    return new TaskFinishedEventImpl(new org.gradle.tooling.events.OperationDescriptor() {
+      @Override
+      public String getName() {
+        return taskPath;
+      }
+
+      @Override
+      public String getDisplayName() {
+        return "Task " + taskPath;
+      }
+
+      @Override
+      public org.gradle.tooling.events.OperationDescriptor getParent() {
+        return null;
+      }
+    }, it -> taskPath, end, taskPath, result, start, dependencies.length == 0 ? Collections.emptyList() : Arrays.asList(dependencies));
+  }
+}
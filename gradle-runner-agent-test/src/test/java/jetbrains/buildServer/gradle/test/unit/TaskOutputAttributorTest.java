@@ -0,0 +1,88 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import jetbrains.buildServer.gradle.runtime.output.TaskOutputAttributor;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TaskOutputAttributorTest {
+
+  @Test
+  public void should_AttributeOutputToSingleRunningTask_When_NoTaskIsAnnounced() {
+    // arrange
+    TaskOutputAttributor attributor = new TaskOutputAttributor();
+    attributor.taskStarted("op-1", ":app:processResources");
+    attributor.taskAnnounced(":app:processResources");
+    attributor.taskFinished("op-1", ":app:processResources");
+    attributor.taskAnnounced(null);
+
+    // act
+    attributor.taskStarted("op-2", ":app:compileJava");
+
+    // assert
+    assertEquals(attributor.getOutputOwner(), ":app:compileJava");
+  }
+
+  @Test
+  public void should_AttributeOutputToAnnouncedTask_When_AnotherSingleTaskIsRunning() {
+    // arrange
+    TaskOutputAttributor attributor = new TaskOutputAttributor();
+    attributor.taskStarted("op-1", ":a:compileJava");
+    attributor.taskStarted("op-2", ":b:test");
+    attributor.taskFinished("op-1", ":a:compileJava");
+
+    // act
+    attributor.taskAnnounced(":a:compileJava");
+
+    // assert
+    assertEquals(attributor.getOutputOwner(), ":a:compileJava");
+  }
+
+  @Test
+  public void should_AttributeOutputToAnnouncedTask_When_TasksRunInParallel() {
+    // arrange
+    TaskOutputAttributor attributor = new TaskOutputAttributor();
+    attributor.taskStarted("op-1", ":app:compileJava");
+    attributor.taskStarted("op-2", ":lib:compileJava");
+
+    // act
+    attributor.taskAnnounced(":lib:compileJava");
+    String firstOwner = attributor.getOutputOwner();
+    attributor.taskAnnounced(":app:compileJava");
+    String secondOwner = attributor.getOutputOwner();
+
+    // assert
+    assertEquals(firstOwner, ":lib:compileJava");
+    assertEquals(secondOwner, ":app:compileJava");
+  }
+
+  @Test
+  public void should_NotAttributeOutput_When_NoTaskIsRunningOrAnnounced() {
+    // arrange
+    TaskOutputAttributor attributor = new TaskOutputAttributor();
+    attributor.taskStarted("op-1", ":app:compileJava");
+    attributor.taskAnnounced(":app:compileJava");
+    attributor.taskFinished("op-1", ":app:compileJava");
+
+    // act
+    attributor.taskAnnounced(null);
+
+    // assert
+    assertNull(attributor.getOutputOwner());
+  }
+
+  @Test
+  public void should_TrackTasksByPath_When_OperationIdIsMissing() {
+    // arrange
+    TaskOutputAttributor attributor = new TaskOutputAttributor();
+    attributor.taskStarted(null, ":app:compileJava");
+    attributor.taskStarted(null, ":lib:compileJava");
+
+    // act
+    attributor.taskFinished(null, ":lib:compileJava");
+
+    // assert
+    assertEquals(attributor.getOutputOwner(), ":app:compileJava");
+  }
+}
@@ -0,0 +1,174 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.runtime.output.ServiceMessageEncoder;
+import jetbrains.buildServer.gradle.runtime.output.TestEventsFileReader;
+import jetbrains.buildServer.gradle.runtime.output.TestEventsFileWriter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestEventsFileTest {
+
+  private TempFiles myTempFiles;
+  private File myFile;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    myTempFiles = new TempFiles();
+    myFile = new File(myTempFiles.createTempDir(), "test-events.bin");
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    myTempFiles.cleanup();
+  }
+
+  @Test
+  public void should_ReadMessagesInWrittenOrder_When_FileIsComplete() throws IOException {
+    // arrange
+    Map<String, Object> output = new LinkedHashMap<>();
+    output.put("name", "Test.test");
+    output.put("out", "line 1\nline 2 |'[]\u00e9");
+    output.put("tc:tags", "tc:parseServiceMessagesInside");
+    output.put("flowId", "flow-1");
+    Map<String, Object> finished = new LinkedHashMap<>();
+    finished.put("name", "Test.test");
+    finished.put("duration", 12);
+    finished.put("flowId", "flow-1");
+    try (TestEventsFileWriter writer = new TestEventsFileWriter(myFile)) {
+      writer.write("testStarted", attributes("name", "Test.test", "flowId", "flow-1"));
+      writer.write("testStdOut", output);
+      writer.write("testFinished", finished);
+      writer.write("compilationStarted", null);
+    }
+
+    // act
+    List<String> messages = readAll(new TestEventsFileReader(myFile));
+
+    // assert
+    assertEquals(messages.size(), 4);
+    assertEquals(messages.get(0), "##teamcity[testStarted name='Test.test' flowId='flow-1']");
+    assertEquals(messages.get(1), ServiceMessageEncoder.encode("testStdOut", output));
+    assertEquals(messages.get(2), "##teamcity[testFinished name='Test.test' duration='12' flowId='flow-1']");
+    assertEquals(messages.get(3), "##teamcity[compilationStarted]");
+  }
+
+  @Test
+  public void should_ReadRestOfMessages_When_FileIsAppendedAfterPreviousRead() throws IOException {
+    // arrange
+    TestEventsFileReader reader = new TestEventsFileReader(myFile);
+    List<String> messages = new ArrayList<>();
+    TestEventsFileWriter writer = new TestEventsFileWriter(myFile);
+    writer.write("testStarted", attributes("name", "first", "flowId", "flow-1"));
+    writer.flush();
+    reader.readAvailable((name, attributes) -> messages.add(ServiceMessageEncoder.encode(name, attributes)));
+
+    // act
+    writer.write("testFinished", attributes("name", "first", "flowId", "flow-1"));
+    writer.write("testStarted", attributes("name", "second", "flowId", "flow-1"));
+    writer.close();
+    reader.readAvailable((name, attributes) -> messages.add(ServiceMessageEncoder.encode(name, attributes)));
+    reader.close();
+
+    // assert
+    assertEquals(messages.size(), 3);
+    assertEquals(messages.get(0), "##teamcity[testStarted name='first' flowId='flow-1']");
+    assertEquals(messages.get(1), "##teamcity[testFinished name='first' flowId='flow-1']");
+    assertEquals(messages.get(2), "##teamcity[testStarted name='second' flowId='flow-1']");
+  }
+
+  @Test
+  public void should_WaitForRestOfRecord_When_RecordIsWrittenPartially() throws IOException {
+    // arrange
+    try (TestEventsFileWriter writer = new TestEventsFileWriter(myFile)) {
+      writer.write("testStarted", attributes("name", "Test.test", "flowId", "flow-1"));
+      writer.write("testStdOut", attributes("name", "Test.test", "out", "output"));
+    }
+    byte[] content = Files.readAllBytes(myFile.toPath());
+    try (RandomAccessFile file = new RandomAccessFile(myFile, "rw")) {
+      file.setLength(content.length - 3);
+    }
+    TestEventsFileReader reader = new TestEventsFileReader(myFile);
+    List<String> messages = new ArrayList<>();
+
+    // act
+    int readBeforeCompletion = reader.readAvailable((name, attributes) -> messages.add(ServiceMessageEncoder.encode(name, attributes)));
+    try (RandomAccessFile file = new RandomAccessFile(myFile, "rw")) {
+      file.seek(content.length - 3);
+      file.write(content, content.length - 3, 3);
+    }
+    int readAfterCompletion = reader.readAvailable((name, attributes) -> messages.add(ServiceMessageEncoder.encode(name, attributes)));
+    reader.close();
+
+    // assert
+    assertEquals(readBeforeCompletion, 1);
+    assertEquals(readAfterCompletion, 1);
+    assertEquals(messages.get(1), "##teamcity[testStdOut name='Test.test' out='output']");
+  }
+
+  @Test
+  public void should_ReadNothing_When_FileIsNotCreatedYet() throws IOException {
+    // arrange
+    TestEventsFileReader reader = new TestEventsFileReader(myFile);
+
+    // act
+    int read = reader.readAvailable((name, attributes) -> {
+      throw new AssertionError("No messages expected");
+    });
+
+    // assert
+    assertEquals(read, 0);
+  }
+
+  @Test
+  public void should_ReadLargeMessage_When_ItExceedsReadBuffer() throws IOException {
+    // arrange
+    StringBuilder output = new StringBuilder();
+    for (int i = 0; i < 200_000; i++) {
+      output.append((char)('a' + i % 26));
+    }
+    try (TestEventsFileWriter writer = new TestEventsFileWriter(myFile)) {
+      writer.write("testStdOut", Collections.singletonMap("out", output.toString()));
+    }
+    List<Map<String, String>> messages = new ArrayList<>();
+
+    // act
+    try (TestEventsFileReader reader = new TestEventsFileReader(myFile)) {
+      reader.readAvailable((name, attributes) -> messages.add(attributes));
+    }
+
+    // assert
+    assertEquals(messages.size(), 1);
+    assertEquals(messages.get(0).get("out"), output.toString());
+  }
+
+  private static Map<String, Object> attributes(String... keysAndValues) {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      attributes.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return attributes;
+  }
+
+  private static List<String> readAll(TestEventsFileReader reader) throws IOException {
+    List<String> messages = new ArrayList<>();
+    try {
+      reader.readAvailable((name, attributes) -> messages.add(ServiceMessageEncoder.encode(name, attributes)));
+    } finally {
+      reader.close();
+    }
+    return messages;
+  }
+}
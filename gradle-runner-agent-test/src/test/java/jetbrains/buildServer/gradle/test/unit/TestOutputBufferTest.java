@@ -0,0 +1,159 @@
+package jetbrains.buildServer.gradle.test.unit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jetbrains.buildServer.TempFiles;
+import jetbrains.buildServer.gradle.runtime.output.TestOutputBuffer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class TestOutputBufferTest {
+
+  private TempFiles myTempFiles;
+  private File mySpillDirectory;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    myTempFiles = new TempFiles();
+    mySpillDirectory = myTempFiles.createTempDir();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    myTempFiles.cleanup();
+  }
+
+  @Test
+  public void should_KeepStreamsSeparately_When_OutputIsAppended() {
+    // arrange
+    TestOutputBuffer<String> buffer = new TestOutputBuffer<>(mySpillDirectory, 1024, 1024 * 1024);
+    buffer.append("test", false, "out 1\n");
+    buffer.append("test", true, "err 1\n");
+    buffer.append("test", false, "out 2\n");
+
+    // act
+    TestOutputBuffer.TestOutput output = buffer.take("test");
+
+    // assert
+    assertNotNull(output);
+    assertEquals(output.getStdOut(), "out 1\nout 2\n");
+    assertEquals(output.getStdErr(), "err 1\n");
+    assertNull(buffer.take("test"));
+  }
+
+  @Test
+  public void should_RequestFlush_When_OutputSizeReachesThreshold() {
+    // arrange
+    TestOutputBuffer<String> buffer = new TestOutputBuffer<>(mySpillDirectory, 100, 1024 * 1024);
+
+    // act
+    boolean flushBeforeThreshold = buffer.append("test", false, repeat('a', 40));
+    boolean flushAtThreshold = buffer.append("test", true, repeat('b', 10));
+
+    // assert
+    assertFalse(flushBeforeThreshold);
+    assertTrue(flushAtThreshold);
+  }
+
+  @Test
+  public void should_RequestFlush_When_TooManyEventsAreAppended() {
+    // arrange
+    TestOutputBuffer<String> buffer = new TestOutputBuffer<>(mySpillDirectory, 1024 * 1024, 1024 * 1024);
+    for (int i = 0; i < TestOutputBuffer.MAX_EVENTS_PER_TEST; i++) {
+      assertFalse(buffer.append("test", false, "."));
+    }
+
+    // act
+    boolean flush = buffer.append("test", false, ".");
+
+    // assert
+    assertTrue(flush);
+  }
+
+  @Test
+  public void should_SpillOutputToFile_When_MemoryBudgetIsExceeded() {
+    // arrange
+    TestOutputBuffer<String> buffer = new TestOutputBuffer<>(mySpillDirectory, 1024, 100);
+    buffer.append("first", false, repeat('a', 30));
+
+    // act
+    buffer.append("second", true, repeat('b', 30));
+    buffer.append("first", false, "\u00e9nd");
+    TestOutputBuffer.TestOutput first = buffer.take("first");
+    TestOutputBuffer.TestOutput second = buffer.take("second");
+
+    // assert
+    assertEquals(buffer.getSpilledBytes(), 30 + 30);
+    assertEquals(buffer.getPeakMemoryBytes(), (30 + 30) * 2);
+    assertNull(buffer.getSpillFailure());
+    assertNotNull(first);
+    assertNotNull(second);
+    assertEquals(first.getStdOut(), repeat('a', 30) + "\u00e9nd");
+    assertEquals(second.getStdErr(), repeat('b', 30));
+  }
+
+  @Test
+  public void should_KeepOutputOfEveryTest_When_TestsAppendConcurrently() throws Exception {
+    // arrange
+    TestOutputBuffer<String> buffer = new TestOutputBuffer<>(mySpillDirectory, 1024 * 1024, 1000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    // act
+    for (int i = 0; i < 8; i++) {
+      String test = "test" + i;
+      futures.add(executor.submit(() -> {
+        for (int line = 0; line < 1000; line++) {
+          buffer.append(test, false, line + "\n");
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    // assert
+    StringBuilder expected = new StringBuilder();
+    for (int line = 0; line < 1000; line++) {
+      expected.append(line).append('\n');
+    }
+    for (int i = 0; i < 8; i++) {
+      TestOutputBuffer.TestOutput output = buffer.take("test" + i);
+      assertNotNull(output);
+      assertEquals(output.getStdOut(), expected.toString());
+    }
+    assertTrue(buffer.getSpilledBytes() > 0);
+    assertNull(buffer.getSpillFailure());
+  }
+
+  @Test
+  public void should_DeleteSpillFile_When_Closed() {
+    // arrange
+    TestOutputBuffer<String> buffer = new TestOutputBuffer<>(mySpillDirectory, 1024, 10);
+    buffer.append("test", false, repeat('a', 10));
+    assertEquals(mySpillDirectory.listFiles().length, 1);
+
+    // act
+    buffer.close();
+
+    // assert
+    assertEquals(mySpillDirectory.listFiles().length, 0);
+  }
+
+  private static String repeat(char ch, int count) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      result.append(ch);
+    }
+    return result.toString();
+  }
+}
@@ -17,6 +17,8 @@ import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersion
 import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersionDetector
 import org.testng.Assert
 import org.testng.annotations.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 @Test
 class GradleRunnerBuildSessionTest {
@@ -57,11 +59,11 @@ class GradleRunnerBuildSessionTest {
         val gradleRunnerContext = getGradleRunnerContext()
 
         val gradleVersionDetector = mockk<GradleVersionDetector>()
+        every { gradleVersionDetector.findKnownGradleVersion() } returns null
         val versionCallbackSlot = slot<(GradleVersion?) -> Unit>()
         every { gradleVersionDetector.detectGradleVersion(any(), capture(versionCallbackSlot)) } returns versionDetectionCommand
 
-        val gradleCommandLineProvider = mockk<GradleCommandLineProvider>()
-        every { gradleCommandLineProvider.getGradleCommandLine(any(), any(), any()) } returns mockk(relaxed = true)
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
 
         val session = GradleRunnerBuildSession(
             gradleRunnerContext, gradleVersionDetector, gradleCommandLineProvider
@@ -75,7 +77,91 @@ class GradleRunnerBuildSessionTest {
         session.getNextCommand()
 
         // assert
-        verify { gradleCommandLineProvider.getGradleCommandLine(any(), expectedVersion, any()) }
+        verify { gradleCommandLineProvider.composeGradleCommandLine(any(), expectedVersion, any()) }
+    }
+
+    @Test
+    fun `should prepare the gradle command line while the gradle version is being detected`() {
+        // arrange
+        val preparationStarted = CountDownLatch(1)
+        val gradleVersionDetector = mockk<GradleVersionDetector>()
+        every { gradleVersionDetector.findKnownGradleVersion() } returns null
+        every { gradleVersionDetector.detectGradleVersion(any(), any()) } returns mockk()
+
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
+        every { gradleCommandLineProvider.prepareGradleCommandLine(any(), any()) } answers {
+            preparationStarted.countDown()
+            mockk(relaxed = true)
+        }
+
+        val flowLogger = mockk<FlowLogger>(relaxed = true)
+        val session = GradleRunnerBuildSession(
+            getGradleRunnerContext(flowLoggerMock = flowLogger), gradleVersionDetector, gradleCommandLineProvider
+        )
+        session.sessionStarted()
+
+        // act
+        session.getNextCommand()
+        val preparedBeforeVersionDetectionFinished = preparationStarted.await(10, TimeUnit.SECONDS)
+        session.getNextCommand()
+
+        // assert
+        Assert.assertTrue(preparedBeforeVersionDetectionFinished)
+        verify(exactly = 1) { gradleCommandLineProvider.prepareGradleCommandLine(any(), any()) }
+        verify(exactly = 1) { flowLogger.message(match { it.startsWith("Gradle step prepared: version detection ") }) }
+    }
+
+    @Test
+    fun `should prepare the gradle command line on the session thread when the obsolete user home detection is enabled`() {
+        // arrange
+        val gradleVersionDetector = mockk<GradleVersionDetector>()
+        every { gradleVersionDetector.findKnownGradleVersion() } returns null
+        every { gradleVersionDetector.detectGradleVersion(any(), any()) } returns mockk()
+
+        var preparationThread: Thread? = null
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
+        every { gradleCommandLineProvider.prepareGradleCommandLine(any(), any()) } answers {
+            preparationThread = Thread.currentThread()
+            mockk(relaxed = true)
+        }
+
+        val gradleRunnerContext = getGradleRunnerContext().apply {
+            every { buildRunnerContext.configParameters } returns mapOf("teamcity.internal.gradle.runner.useProjectConnectorUserHomeDetection" to "true")
+        }
+        val session = GradleRunnerBuildSession(gradleRunnerContext, gradleVersionDetector, gradleCommandLineProvider)
+        session.sessionStarted()
+
+        // act
+        session.getNextCommand()
+        session.getNextCommand()
+
+        // assert
+        Assert.assertSame(preparationThread, Thread.currentThread())
+        verify(exactly = 1) { gradleCommandLineProvider.prepareGradleCommandLine(any(), any()) }
+    }
+
+    @Test
+    fun `should not launch version detection when the gradle version is already known`() {
+        // arrange
+        val knownVersion = GradleVersion("8.5")
+        val gradleVersionDetector = mockk<GradleVersionDetector>()
+        every { gradleVersionDetector.findKnownGradleVersion() } returns knownVersion
+
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
+
+        val session = GradleRunnerBuildSession(
+            getGradleRunnerContext(), gradleVersionDetector, gradleCommandLineProvider
+        )
+        session.sessionStarted()
+
+        // act
+        val command = session.getNextCommand()
+
+        // assert
+        Assert.assertTrue(command is GradleCommandExecution)
+        Assert.assertNull(session.getNextCommand())
+        verify(exactly = 0) { gradleVersionDetector.detectGradleVersion(any(), any()) }
+        verify { gradleCommandLineProvider.composeGradleCommandLine(any(), knownVersion, any()) }
     }
 
     @Test
@@ -83,8 +169,7 @@ class GradleRunnerBuildSessionTest {
         // arrange
         val gradleRunnerContext = getGradleRunnerContext(isGradleVersionNotNeeded = true)
 
-        val gradleCommandLineProvider = mockk<GradleCommandLineProvider>()
-        every { gradleCommandLineProvider.getGradleCommandLine(any(), any(), any()) } returns mockk(relaxed = true)
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
 
         val session = GradleRunnerBuildSession(
             gradleRunnerContext, mockk(), gradleCommandLineProvider
@@ -95,7 +180,7 @@ class GradleRunnerBuildSessionTest {
         session.getNextCommand()
 
         // assert
-        verify { gradleCommandLineProvider.getGradleCommandLine(any(), null, any()) }
+        verify { gradleCommandLineProvider.composeGradleCommandLine(any(), null, any()) }
     }
 
     @Test
@@ -149,8 +234,7 @@ class GradleRunnerBuildSessionTest {
             flowLoggerMock = flowLogger
         )
 
-        val gradleCommandLineProvider = mockk<GradleCommandLineProvider>()
-        every { gradleCommandLineProvider.getGradleCommandLine(any(), any(), any()) } returns mockk(relaxed = true)
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
 
         val session = GradleRunnerBuildSession(
             gradleRunnerContext, mockk(), gradleCommandLineProvider
@@ -181,10 +265,10 @@ class GradleRunnerBuildSessionTest {
         )
 
         val gradleVersionDetector = mockk<GradleVersionDetector>()
+        every { gradleVersionDetector.findKnownGradleVersion() } returns null
         every { gradleVersionDetector.detectGradleVersion(any(), any()) } returns versionDetectionCommand
 
-        val gradleCommandLineProvider = mockk<GradleCommandLineProvider>()
-        every { gradleCommandLineProvider.getGradleCommandLine(any(), any(), any()) } returns mockk(relaxed = true)
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
 
         val session = GradleRunnerBuildSession(
             gradleRunnerContext, gradleVersionDetector, gradleCommandLineProvider
@@ -206,12 +290,12 @@ class GradleRunnerBuildSessionTest {
         failBuildOnExitCode: Boolean = true
     ): GradleRunnerBuildSession {
         val gradleVersionDetector = mockk<GradleVersionDetector>()
+        every { gradleVersionDetector.findKnownGradleVersion() } returns null
         if (versionDetectionResult != null) {
             every { gradleVersionDetector.detectGradleVersion(any(), any()) } returns versionDetectionResult
         }
 
-        val gradleCommandLineProvider = mockk<GradleCommandLineProvider>()
-        every { gradleCommandLineProvider.getGradleCommandLine(any(), any(), any()) } returns mockk(relaxed = true)
+        val gradleCommandLineProvider = mockGradleCommandLineProvider()
 
         val gradleRunnerContext = getGradleRunnerContext(isGradleVersionNotNeeded, failBuildOnExitCode)
 
@@ -232,4 +316,9 @@ class GradleRunnerBuildSessionTest {
         every { build.failBuildOnExitCode } returns failBuildOnExitCode
         every { flowLogger } returns flowLoggerMock
     }
+
+    private fun mockGradleCommandLineProvider(): GradleCommandLineProvider = mockk<GradleCommandLineProvider>().apply {
+        every { prepareGradleCommandLine(any(), any()) } returns mockk(relaxed = true)
+        every { composeGradleCommandLine(any(), any(), any()) } returns mockk(relaxed = true)
+    }
 }
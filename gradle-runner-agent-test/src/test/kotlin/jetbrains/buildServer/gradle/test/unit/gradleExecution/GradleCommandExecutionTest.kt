@@ -2,10 +2,12 @@ package jetbrains.buildServer.gradle.test.unit.gradleExecution
 
 import io.mockk.mockk
 import io.mockk.verify
+import io.mockk.verifyOrder
 import jetbrains.buildServer.agent.runner.ProcessListener
 import jetbrains.buildServer.agent.runner.ProgramCommandLine
 import jetbrains.buildServer.agent.runner.TerminationAction
 import jetbrains.buildServer.gradle.agent.gradleExecution.GradleCommandExecution
+import jetbrains.buildServer.gradle.agent.gradleExecution.TestEventsFileTailer
 import org.testng.Assert
 import org.testng.annotations.Test
 import java.io.File
@@ -53,6 +55,55 @@ class GradleCommandExecutionTest {
         Assert.assertEquals(callbackExitCode, 7)
     }
 
+    @Test
+    fun `test events file should be read while process is running and before failure report`() {
+        // arrange
+        val listener = mockk<ProcessListener>(relaxed = true)
+        val tailer = mockk<TestEventsFileTailer>(relaxed = true)
+        val execution = GradleCommandExecution(mockk(), listener, tailer) { }
+        val workingDirectory = File("/tmp/project")
+
+        // act
+        execution.processStarted("gradle build", workingDirectory)
+        execution.processFinished(1)
+
+        // assert
+        verifyOrder {
+            listener.processStarted("gradle build", workingDirectory)
+            tailer.start()
+            tailer.stop()
+            listener.processFinished(1)
+        }
+    }
+
+    @Test
+    fun `test events file should be read before task boundary lines only`() {
+        // arrange
+        val listener = mockk<ProcessListener>(relaxed = true)
+        val tailer = mockk<TestEventsFileTailer>(relaxed = true)
+        val execution = GradleCommandExecution(mockk(), listener, tailer) { }
+
+        // act
+        execution.onStandardOutput("> Task :app:test")
+        execution.onStandardOutput("test output")
+        execution.onErrorOutput("error: cannot find symbol")
+        execution.onErrorOutput("FAILURE: Build failed with an exception.")
+        execution.onStandardOutput("BUILD FAILED in 1s")
+
+        // assert
+        verify(exactly = 3) { tailer.readAvailable() }
+        verifyOrder {
+            tailer.readAvailable()
+            listener.onStandardOutput("> Task :app:test")
+            listener.onStandardOutput("test output")
+            listener.onErrorOutput("error: cannot find symbol")
+            tailer.readAvailable()
+            listener.onErrorOutput("FAILURE: Build failed with an exception.")
+            tailer.readAvailable()
+            listener.onStandardOutput("BUILD FAILED in 1s")
+        }
+    }
+
     @Test
     fun `interruptRequested should kill process tree`() {
         // arrange
@@ -0,0 +1,118 @@
+package jetbrains.buildServer.gradle.test.unit.versionDetection
+
+import jetbrains.buildServer.TempFiles
+import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersion
+import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersionCache
+import jetbrains.buildServer.gradle.agent.versionDetection.KnownGradleVersionReader
+import org.testng.Assert
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.DataProvider
+import org.testng.annotations.Test
+import java.io.File
+
+@Test
+class GradleVersionCacheTest {
+    private val tempFiles = TempFiles()
+    private lateinit var tempDir: File
+
+    @BeforeMethod
+    fun setUp() {
+        tempDir = tempFiles.createTempDir()
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        tempFiles.cleanup()
+    }
+
+    @DataProvider(name = "distributionUrls")
+    fun distributionUrls(): Array<Array<Any?>> = arrayOf(
+        arrayOf("https\\://services.gradle.org/distributions/gradle-8.5-bin.zip", "8.5"),
+        arrayOf("https\\://services.gradle.org/distributions/gradle-4.0.2-all.zip", "4.0.2"),
+        arrayOf("https\\://services.gradle.org/distributions/gradle-8.6-rc-1-bin.zip", "8.6-rc-1"),
+        arrayOf("https\\://services.gradle.org/distributions/gradle-8.5-milestone-1-all.zip", "8.5-milestone-1"),
+        arrayOf("https\\://repo.example.com/gradle/gradle-9.3.0-bin.zip", "9.3.0"),
+        arrayOf("https\\://services.gradle.org/distributions-snapshots/gradle-8.6-20231201000000+0000-bin.zip", null),
+        arrayOf("https\\://repo.example.com/gradle/custom-gradle-8.5-bin.zip", null),
+        arrayOf("https\\://repo.example.com/gradle/distribution.zip", null)
+    )
+
+    @Test(dataProvider = "distributionUrls")
+    fun `should read the gradle version from the wrapper distribution url`(distributionUrl: String, expectedVersion: String?) {
+        // arrange
+        val wrapperProperties = createWrapperProperties("distributionUrl=$distributionUrl")
+
+        // act
+        val version = KnownGradleVersionReader.fromWrapperProperties(wrapperProperties)
+
+        // assert
+        Assert.assertEquals(version, expectedVersion?.let { GradleVersion(it) })
+    }
+
+    @Test
+    fun `should read the gradle version from the gradle home libraries`() {
+        // arrange
+        val gradleHome = createGradleHome("gradle-api-metadata-9.1.0.jar", "gradle-launcher-9.1.0.jar", "groovy-4.0.27.jar")
+
+        // act
+        val version = KnownGradleVersionReader.fromGradleHome(gradleHome)
+
+        // assert
+        Assert.assertEquals(version, GradleVersion("9.1.0"))
+    }
+
+    @Test
+    fun `should return the stored version when the wrapper distribution is the same`() {
+        // arrange
+        val cache = GradleVersionCache(File(tempDir, "cache"))
+        val key = GradleVersionCache.computeWrapperKey(createWrapperProperties("distributionUrl=https\\://example.com/gradle.zip"))!!
+        cache.put(key, GradleVersion("8.6-20231201000000+0000"))
+
+        // act
+        val sameKey = GradleVersionCache.computeWrapperKey(createWrapperProperties("distributionUrl=https\\://example.com/gradle.zip\nzipStorePath=wrapper/dists"))!!
+        val version = cache.get(sameKey)
+
+        // assert
+        Assert.assertEquals(version, GradleVersion("8.6-20231201000000+0000"))
+    }
+
+    @Test
+    fun `should not return the stored version when the wrapper distribution checksum changes`() {
+        // arrange
+        val cache = GradleVersionCache(File(tempDir, "cache"))
+        val key = GradleVersionCache.computeWrapperKey(createWrapperProperties("distributionUrl=https\\://example.com/gradle.zip"))!!
+        cache.put(key, GradleVersion("8.5"))
+
+        // act
+        val changedKey = GradleVersionCache.computeWrapperKey(
+            createWrapperProperties("distributionUrl=https\\://example.com/gradle.zip\ndistributionSha256Sum=abc")
+        )!!
+        val version = cache.get(changedKey)
+
+        // assert
+        Assert.assertNull(version)
+    }
+
+    @Test
+    fun `should not compute the key when the wrapper properties have no distribution url`() {
+        // arrange
+        val wrapperProperties = createWrapperProperties("zipStorePath=wrapper/dists")
+
+        // act
+        val key = GradleVersionCache.computeWrapperKey(wrapperProperties)
+
+        // assert
+        Assert.assertNull(key)
+    }
+
+    private fun createWrapperProperties(content: String): File =
+        File(tempDir, "gradle-wrapper.properties").apply { writeText(content) }
+
+    private fun createGradleHome(vararg libraries: String): File {
+        val gradleHome = tempFiles.createTempDir()
+        val lib = File(gradleHome, "lib").apply { mkdirs() }
+        libraries.forEach { File(lib, it).createNewFile() }
+        return gradleHome
+    }
+}
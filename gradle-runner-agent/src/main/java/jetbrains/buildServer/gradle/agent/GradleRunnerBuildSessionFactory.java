@@ -12,13 +12,16 @@ import jetbrains.buildServer.gradle.agent.gradleOptions.GradleConfigurationCache
 import jetbrains.buildServer.gradle.agent.commandLine.CommandLineParametersProcessor;
 import jetbrains.buildServer.gradle.agent.gradleExecution.GradleCommandLineProvider;
 import jetbrains.buildServer.gradle.agent.tasks.GradleTasksComposer;
+import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersionCache;
 import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersionDetector;
 import jetbrains.buildServer.log.Loggers;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class GradleRunnerBuildSessionFactory implements MultiCommandBuildSessionFactory
 {
   private static final Info info = new Info();
+  private static final String VERSION_CACHE_DIR_NAME = "gradle-runner-version";
 
   private final GradleCommandLineComposerHolder composerHolder;
   private final GradleTasksComposer tasksComposer;
@@ -45,7 +48,7 @@ public class GradleRunnerBuildSessionFactory implements MultiCommandBuildSession
   public MultiCommandBuildSession createSession(@NotNull BuildRunnerContext runnerContext)
    {
     GradleRunnerContext gradleRunnerContext = new GradleRunnerContext(runnerContext);
-    GradleVersionDetector gradleVersionDetector = new GradleVersionDetector(gradleRunnerContext);
+    GradleVersionDetector gradleVersionDetector = new GradleVersionDetector(gradleRunnerContext, createGradleVersionCache(runnerContext));
     GradleCommandLineProvider gradleCommandLineProvider = new GradleCommandLineProvider(
       gradleRunnerContext,
       composerHolder,
@@ -58,6 +61,15 @@ public class GradleRunnerBuildSessionFactory implements MultiCommandBuildSession
     return new GradleRunnerBuildSession(gradleRunnerContext, gradleVersionDetector, gradleCommandLineProvider);
    }
 
+  @Nullable
+  private static GradleVersionCache createGradleVersionCache(@NotNull BuildRunnerContext runnerContext) {
+    String enabled = runnerContext.getConfigParameters().get(GradleRunnerConstants.GRADLE_RUNNER_VERSION_DETECTION_CACHE_CONFIG_PARAM);
+    if (enabled != null && !Boolean.parseBoolean(enabled)) {
+      return null;
+    }
+    return new GradleVersionCache(runnerContext.getBuild().getAgentConfiguration().getCacheDirectory(VERSION_CACHE_DIR_NAME));
+  }
+
    @NotNull public AgentBuildRunnerInfo getBuildRunnerInfo()
    {
       return info;
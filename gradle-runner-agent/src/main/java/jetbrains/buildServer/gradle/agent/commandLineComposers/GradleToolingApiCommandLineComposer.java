@@ -50,6 +50,8 @@ import static jetbrains.buildServer.gradle.agent.propertySplit.InitScriptParamet
 import static jetbrains.buildServer.gradle.agent.propertySplit.InitScriptParametersConstants.TEAMCITY_CONFIGURATION_USE_TEST_RETRY_PLUGIN_KEY;
 
 public class GradleToolingApiCommandLineComposer implements GradleCommandLineComposer {
+  private static final String BUILD_ENVIRONMENT_CACHE_DIR_NAME = "gradle-runner-build-environment";
+
   @NotNull
   private final Map<SplitablePropertyFile, GradleBuildPropertiesSplitter> propertySplitters;
   @NotNull
@@ -101,6 +103,13 @@ public class GradleToolingApiCommandLineComposer implements GradleCommandLineCom
     Optional
       .ofNullable(System.getProperty(TC_BUILD_PROPERTIES_SYSTEM_PROPERTY_KEY))
       .ifPresent(it -> props.put(TC_BUILD_PROPERTIES_SYSTEM_PROPERTY_KEY, it));
+    Stream.of(GRADLE_RUNNER_ASYNC_EVENT_DISPATCH_CONFIG_PARAM,
+              GRADLE_RUNNER_ASYNC_EVENT_DISPATCH_QUEUE_SIZE_CONFIG_PARAM,
+              GRADLE_RUNNER_TASK_OUTPUT_MEMORY_BUDGET_CONFIG_PARAM,
+              GRADLE_RUNNER_TOOLING_API_TEST_EVENTS_CONFIG_PARAM,
+              GRADLE_RUNNER_SLOWEST_TASKS_STATISTICS_CONFIG_PARAM,
+              GRADLE_RUNNER_LAZY_GRADLE_PROPERTIES_CONFIG_PARAM)
+          .forEach(param -> Optional.ofNullable(parameters.getConfigParameters().get(param)).ifPresent(it -> props.put(param, it)));
 
     Optional<Boolean> doNotPopulateGradleProperties = Optional
       .ofNullable(parameters.getConfigParameters().get(GRADLE_RUNNER_DO_NOT_POPULATE_GRADLE_PROPERTIES_CONFIG_PARAM))
@@ -155,20 +164,27 @@ public class GradleToolingApiCommandLineComposer implements GradleCommandLineCom
     }
 
     Map<String, String> env = new HashMap<>(parameters.getEnv());
-    env.put(GRADLE_PARAMS_FILE_ENV_KEY, storeLauncherParamsToTempFile(tasksComposer.getGradleParameters(
+    Map<String, String> configParams = parameters.getConfigParameters();
+    List<String> gradleParams = tasksComposer.getGradleParameters(
       getLaunchMode(),
       parameters.getRunnerParameters(),
       parameters.getGradleUserDefinedParams(),
       parameters.getPluginsDir().toFile()
-    ), buildTempDir, GRADLE_PARAMS_FILE));
-    env.put(GRADLE_JVM_PARAMS_FILE_ENV_KEY, storeLauncherParamsToTempFile(composeGradleJvmArgs(parameters), buildTempDir, GRADLE_JVM_PARAMS_FILE));
-    env.put(GRADLE_TASKS_FILE_ENV_KEY, storeLauncherParamsToTempFile(parameters.getGradleTasks(), buildTempDir, GRADLE_TASKS_FILE));
+    );
+    List<String> gradleJvmArgs = composeGradleJvmArgs(parameters);
+    if (getBooleanOrDefault(configParams, GRADLE_RUNNER_BINARY_LAUNCHER_PARAMETERS_CONFIG_PARAM, false)) {
+      env.put(GRADLE_LAUNCHER_PARAMS_FILE_ENV_KEY, storeLauncherParamsToBinaryTempFile(gradleParams, gradleJvmArgs, parameters.getGradleTasks(), buildTempDir));
+    } else {
+      env.put(GRADLE_PARAMS_FILE_ENV_KEY, storeLauncherParamsToTempFile(gradleParams, buildTempDir, GRADLE_PARAMS_FILE));
+      env.put(GRADLE_JVM_PARAMS_FILE_ENV_KEY, storeLauncherParamsToTempFile(gradleJvmArgs, buildTempDir, GRADLE_JVM_PARAMS_FILE));
+      env.put(GRADLE_TASKS_FILE_ENV_KEY, storeLauncherParamsToTempFile(parameters.getGradleTasks(), buildTempDir, GRADLE_TASKS_FILE));
+    }
 
-    Map<String, String> configParams = parameters.getConfigParameters();
     configureGradleDaemonClasspathEnhancement(env, configParams);
     configureTestTaskJvmArgumentsProvider(env, configParams);
     configureInitScriptClasspath(env, parameters.getLogger()); // workaround for https://github.com/gradle/gradle/issues/32939
     configureLauncherShutdownTimeout(env, configParams); // workaround for https://github.com/gradle/gradle/issues/34491, delete when issue fixed
+    configureBuildEnvironmentCache(env, parameters);
 
     return env;
   }
@@ -196,6 +212,26 @@ public class GradleToolingApiCommandLineComposer implements GradleCommandLineCom
     }
   }
 
+  /**
+   * Stores the Gradle parameters, JVM arguments and tasks in a single file, in this order
+   */
+  @NotNull
+  private String storeLauncherParamsToBinaryTempFile(@NotNull List<String> gradleParams,
+                                                     @NotNull List<String> gradleJvmArgs,
+                                                     @NotNull List<String> gradleTasks,
+                                                     @NotNull Path buildTempDir) throws RunBuildException {
+    Path targetFile = buildTempDir.resolve(GRADLE_LAUNCHER_PARAMS_FILE);
+    try {
+      LauncherParameters.writeToBinaryFile(targetFile,
+                                           LauncherParameters.fromValues(gradleParams),
+                                           LauncherParameters.fromValues(gradleJvmArgs),
+                                           LauncherParameters.fromValues(gradleTasks));
+      return targetFile.toString();
+    } catch (IOException e) {
+      throw new RunBuildException("Failed to store Gradle launcher parameters to file " + GRADLE_LAUNCHER_PARAMS_FILE + " in " + buildTempDir, e);
+    }
+  }
+
   private void configureGradleDaemonClasspathEnhancement(@NotNull final Map<String, String> env, @NotNull final Map<String, String> configParams) {
     if (!configParams.containsKey(GRADLE_RUNNER_ENHANCE_GRADLE_DAEMON_CLASSPATH) || Boolean.parseBoolean(configParams.get(GRADLE_RUNNER_ENHANCE_GRADLE_DAEMON_CLASSPATH))) {
       env.put(GRADLE_DAEMON_ENHANCEMENT_CLASSES_ENV_KEY, GradleDaemonEnhancementClassesProvider.provide());
@@ -228,6 +264,15 @@ public class GradleToolingApiCommandLineComposer implements GradleCommandLineCom
     }
   }
 
+  private void configureBuildEnvironmentCache(@NotNull Map<String, String> env, @NotNull GradleCommandLineComposerParameters parameters) {
+    if (!getBooleanOrDefault(parameters.getConfigParameters(), GRADLE_RUNNER_BUILD_ENVIRONMENT_CACHE_CONFIG_PARAM, false)) {
+      return;
+    }
+
+    File cacheDir = parameters.getRunnerContext().getBuild().getAgentConfiguration().getCacheDirectory(BUILD_ENVIRONMENT_CACHE_DIR_NAME);
+    env.put(BUILD_ENVIRONMENT_CACHE_DIR_ENV_KEY, cacheDir.getAbsolutePath());
+  }
+
   @NotNull
   private Boolean readAllBuildParamsRequired(final boolean configurationCacheEnabled,
                                              @NotNull final Map<String, String> configParams,
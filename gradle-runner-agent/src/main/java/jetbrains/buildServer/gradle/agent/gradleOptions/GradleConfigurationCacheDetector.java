@@ -3,6 +3,7 @@ package jetbrains.buildServer.gradle.agent.gradleOptions;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import jetbrains.buildServer.agent.BuildProgressLogger;
 import jetbrains.buildServer.util.VersionComparatorUtil;
@@ -18,28 +19,39 @@ public class GradleConfigurationCacheDetector {
     this.gradleOptionValueFetcher = gradleOptionValueFetcher;
   }
 
+  /**
+   * Creates a snapshot of the Gradle options to be shared by all the checks of the same build
+   */
+  @NotNull
+  public GradleOptionsSnapshot createOptionsSnapshot(@NotNull List<String> gradleTasks,
+                                                     @NotNull List<String> gradleParams,
+                                                     @Nullable File gradleUserHome,
+                                                     @NotNull File projectDirectory) {
+    return gradleOptionValueFetcher.createSnapshot(gradleTasks, gradleParams, gradleUserHome, projectDirectory);
+  }
+
   public boolean isConfigurationCacheEnabled(@NotNull BuildProgressLogger logger,
                                              @NotNull List<String> gradleTasks,
                                              @NotNull List<String> gradleParams,
                                              @Nullable File gradleUserHome,
                                              @NotNull File projectDirectory,
                                              @Nullable GradleVersion gradleVersion) {
+    return isConfigurationCacheEnabled(logger, createOptionsSnapshot(gradleTasks, gradleParams, gradleUserHome, projectDirectory), gradleVersion);
+  }
+
+  public boolean isConfigurationCacheEnabled(@NotNull BuildProgressLogger logger,
+                                             @NotNull GradleOptionsSnapshot gradleOptions,
+                                             @Nullable GradleVersion gradleVersion) {
     try {
-      return gradleOptionValueFetcher.fetchOptionValue(
-        GradleOptionValueFetchingParameters.builder()
-                                           .withGradleTasks(gradleTasks)
-                                           .withGradleParams(gradleParams)
-                                           .withGradleUserHome(gradleUserHome)
-                                           .withProjectDirectory(projectDirectory)
-                                           .withGradleOptionType(GradleOptionType.BOOLEAN)
-                                           .withOptionNames(Arrays.asList("--configuration-cache"))
-                                           .withOptionDisablingNames(Arrays.asList("--no-configuration-cache"))
-                                           .withGradlePropertiesOptionNames(getConfigurationCachePropertyNames(gradleVersion,
-                                                                                                               "org.gradle.configuration-cache",
-                                                                                                               "org.gradle.unsafe.configuration-cache"))
-                                           .build())
-                                     .map(Boolean::parseBoolean)
-        .orElse(false);
+      return gradleOptions.fetchOptionValue(GradleOptionType.BOOLEAN,
+                                            Arrays.asList("--configuration-cache"),
+                                            Arrays.asList("--no-configuration-cache"),
+                                            getConfigurationCachePropertyNames(gradleVersion,
+                                                                               "org.gradle.configuration-cache",
+                                                                               "org.gradle.unsafe.configuration-cache"))
+                          .map(GradleOptionValue::getValue)
+                          .map(Boolean::parseBoolean)
+                          .orElse(false);
     } catch (Throwable t) {
       logger.warning("An error occurred while checking if the configuration cache feature is enabled: " + t.getMessage());
       return false;
@@ -52,21 +64,21 @@ public class GradleConfigurationCacheDetector {
                                                       @Nullable File gradleUserHome,
                                                       @NotNull File projectDirectory,
                                                       @Nullable GradleVersion gradleVersion) {
+    return areConfigurationCacheProblemsIgnored(logger, createOptionsSnapshot(gradleTasks, gradleParams, gradleUserHome, projectDirectory), gradleVersion);
+  }
+
+  public boolean areConfigurationCacheProblemsIgnored(@NotNull BuildProgressLogger logger,
+                                                      @NotNull GradleOptionsSnapshot gradleOptions,
+                                                      @Nullable GradleVersion gradleVersion) {
     try {
-      return gradleOptionValueFetcher.fetchOptionValue(
-        GradleOptionValueFetchingParameters.builder()
-                                           .withGradleTasks(gradleTasks)
-                                           .withGradleParams(gradleParams)
-                                           .withGradleUserHome(gradleUserHome)
-                                           .withProjectDirectory(projectDirectory)
-                                           .withGradleOptionType(GradleOptionType.KEY_VALUE)
-                                           .withOptionNames(Arrays.asList("--configuration-cache-problems"))
-                                           .withGradlePropertiesOptionNames(getConfigurationCachePropertyNames(gradleVersion,
-                                                                                                               "org.gradle.configuration-cache.problems",
-                                                                                                               "org.gradle.unsafe.configuration-cache-problems"))
-                                           .build())
-        .map(value -> value.equalsIgnoreCase("warn"))
-        .orElse(false);
+      return gradleOptions.fetchOptionValue(GradleOptionType.KEY_VALUE,
+                                            Arrays.asList("--configuration-cache-problems"),
+                                            Collections.emptyList(),
+                                            getConfigurationCachePropertyNames(gradleVersion,
+                                                                               "org.gradle.configuration-cache.problems",
+                                                                               "org.gradle.unsafe.configuration-cache-problems"))
+                          .map(value -> value.getValue().equalsIgnoreCase("warn"))
+                          .orElse(false);
     } catch (Throwable t) {
       logger.warning("An error occurred while checking if configuration cache problems are ignored: " + t.getMessage());
       return false;
@@ -0,0 +1,10 @@
+package jetbrains.buildServer.gradle.agent.gradleOptions;
+
+/**
+ * Places a Gradle option value can come from, in descending order of priority
+ */
+public enum GradleOptionSource {
+  COMMAND_LINE,
+  GRADLE_USER_HOME_PROPERTIES,
+  PROJECT_PROPERTIES
+}
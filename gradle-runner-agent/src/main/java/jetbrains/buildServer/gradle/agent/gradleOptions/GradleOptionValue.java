@@ -0,0 +1,58 @@
+package jetbrains.buildServer.gradle.agent.gradleOptions;
+
+import java.io.File;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A Gradle option value along with the place it was taken from
+ */
+public class GradleOptionValue {
+
+  @NotNull
+  private final String value;
+  @NotNull
+  private final GradleOptionSource source;
+  @NotNull
+  private final String optionName;
+  @Nullable
+  private final File file;
+
+  GradleOptionValue(@NotNull String value, @NotNull GradleOptionSource source, @NotNull String optionName, @Nullable File file) {
+    this.value = value;
+    this.source = source;
+    this.optionName = optionName;
+    this.file = file;
+  }
+
+  @NotNull
+  public String getValue() {
+    return value;
+  }
+
+  @NotNull
+  public GradleOptionSource getSource() {
+    return source;
+  }
+
+  /**
+   * @return the command line option or the gradle.properties key the value was taken from
+   */
+  @NotNull
+  public String getOptionName() {
+    return optionName;
+  }
+
+  /**
+   * @return the gradle.properties file the value was taken from, null for the command line
+   */
+  @Nullable
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public String toString() {
+    return optionName + "=" + value + " (" + (file != null ? file.getPath() : source) + ")";
+  }
+}
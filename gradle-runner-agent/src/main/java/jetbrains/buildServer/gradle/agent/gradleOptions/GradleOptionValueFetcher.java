@@ -1,22 +1,24 @@
 package jetbrains.buildServer.gradle.agent.gradleOptions;
 
 import java.io.File;
-import java.io.IOException;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Properties;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import jetbrains.buildServer.gradle.agent.GradleRunnerFileUtil;
 import org.jetbrains.annotations.NotNull;
-
-import static jetbrains.buildServer.gradle.agent.util.GradleCommandLineUtil.extractEqualSignSeparatedParamValue;
+import org.jetbrains.annotations.Nullable;
 
 public class GradleOptionValueFetcher {
 
-  private static final String GRADLE_PROPERTIES_FILENAME = "gradle.properties";
+  /**
+   * Creates a snapshot of the Gradle options of the building project, see {@link GradleOptionsSnapshot}.
+   * Use it to fetch several options of the same build.
+   */
+  @NotNull
+  public GradleOptionsSnapshot createSnapshot(@NotNull List<String> gradleTasks,
+                                              @NotNull List<String> gradleParams,
+                                              @Nullable File gradleUserHome,
+                                              @NotNull File projectDirectory) {
+    return new GradleOptionsSnapshot(gradleTasks, gradleParams, gradleUserHome, projectDirectory);
+  }
 
   /**
    * Fetch a gradle option value from the building project.
@@ -32,97 +34,8 @@ public class GradleOptionValueFetcher {
    */
   @NotNull
   public Optional<String> fetchOptionValue(@NotNull GradleOptionValueFetchingParameters parameters) {
-    Optional<String> optionFromCommandLine = checkCommandLineArgs(parameters);
-    if (optionFromCommandLine.isPresent()) {
-      return optionFromCommandLine;
-    }
-
-    Optional<String> optionFromGradleUserHomeDir = checkGradleUserHomeDirectory(parameters);
-    if (optionFromGradleUserHomeDir.isPresent()) {
-      return optionFromGradleUserHomeDir;
-    }
-
-    Optional<String> optionFromProjectDir = checkProjectDirectory(parameters);
-    if (optionFromProjectDir.isPresent()) {
-      return optionFromProjectDir;
-    }
-
-    return Optional.empty();
-  }
-
-  @NotNull
-  private Optional<String> checkCommandLineArgs(@NotNull GradleOptionValueFetchingParameters parameters) {
-    switch (parameters.getGradleOptionType()) {
-      case BOOLEAN:
-        Set<String> tasksAndParams = Stream.concat(parameters.getGradleTasks().stream(), parameters.getGradleParams().stream()).collect(Collectors.toSet());
-        for (String it : parameters.getOptionNames()) {
-          if (tasksAndParams.contains(it)) {
-            return Optional.of(Boolean.TRUE.toString());
-          }
-        }
-        for (String it : parameters.getOptionDisablingNames()) {
-          if (tasksAndParams.contains(it)) {
-            return Optional.of(Boolean.FALSE.toString());
-          }
-        }
-        return Optional.empty();
-      case KEY_VALUE:
-        List<String> tasksAndParamsList = Stream.concat(parameters.getGradleTasks().stream(), parameters.getGradleParams().stream()).collect(Collectors.toList());
-        for (int i = 0; i < tasksAndParamsList.size(); i++) {
-          String item = tasksAndParamsList.get(i);
-          for (String it : parameters.getOptionNames()) {
-            if (item.startsWith(it + "=")) {
-              return Optional.of(extractEqualSignSeparatedParamValue(item));
-            }
-            if (item.equals(it) && i + 1 < tasksAndParamsList.size()) {
-              return Optional.of(tasksAndParamsList.get(i + 1));
-            }
-          }
-        }
-        return Optional.empty();
-      default:
-        throw new IllegalStateException("Unsupported GradleOptionType: " + parameters.getGradleOptionType());
-    }
-  }
-
-  @NotNull
-  private Optional<String> checkProjectDirectory(@NotNull GradleOptionValueFetchingParameters parameters) {
-    File gradleProperties = new File(parameters.getProjectDirectory(), GRADLE_PROPERTIES_FILENAME);
-    return checkGradleProperties(gradleProperties, parameters.getGradlePropertiesOptionNames());
-  }
-
-  @NotNull
-  private Optional<String> checkGradleUserHomeDirectory(@NotNull GradleOptionValueFetchingParameters parameters) {
-    if (!parameters.getGradleUserHome().isPresent()) {
-      return Optional.empty();
-    }
-
-    File gradleProperties = new File(parameters.getGradleUserHome().get(), GRADLE_PROPERTIES_FILENAME);
-
-    return checkGradleProperties(gradleProperties, parameters.getGradlePropertiesOptionNames());
-  }
-
-  @NotNull
-  private Optional<String> checkGradleProperties(@NotNull File gradleProperties,
-                                                 @NotNull Collection<String> gradlePropertiesOptionNames) {
-    if (!gradleProperties.exists() || !gradleProperties.isFile()) {
-      return Optional.empty();
-    }
-
-    Properties gradlePropertiesContent;
-    try {
-      gradlePropertiesContent = GradleRunnerFileUtil.readProperties(gradleProperties);
-    } catch (IOException ignore) {
-      return Optional.empty();
-    }
-
-    for (String optionName : gradlePropertiesOptionNames) {
-      if (gradlePropertiesContent.containsKey(optionName)) {
-        String optionValue = (String) gradlePropertiesContent.get(optionName);
-        return Optional.of(optionValue);
-      }
-    }
-
-    return Optional.empty();
+    return createSnapshot(parameters.getGradleTasks(), parameters.getGradleParams(), parameters.getGradleUserHome().orElse(null), parameters.getProjectDirectory())
+      .fetchOptionValue(parameters.getGradleOptionType(), parameters.getOptionNames(), parameters.getOptionDisablingNames(), parameters.getGradlePropertiesOptionNames())
+      .map(GradleOptionValue::getValue);
   }
 }
@@ -0,0 +1,204 @@
+package jetbrains.buildServer.gradle.agent.gradleOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import jetbrains.buildServer.gradle.agent.GradleRunnerFileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static jetbrains.buildServer.gradle.agent.util.GradleCommandLineUtil.extractEqualSignSeparatedParamValue;
+
+/**
+ * Gradle options of a single build.
+ * The command line is indexed once, and every gradle.properties file is read at most once, when an option is first looked up in it.
+ * After that, any number of options can be fetched without touching the file system again.
+ * <p>
+ * Not thread-safe, a snapshot is expected to be used by one thread at a time, e.g. prepared in the background and then handed over to the thread preparing the build.
+ */
+public class GradleOptionsSnapshot {
+
+  private static final String GRADLE_PROPERTIES_FILENAME = "gradle.properties";
+
+  @NotNull
+  private final List<String> commandLineArguments;
+  @NotNull
+  private final Set<String> commandLineArgumentSet;
+  /**
+   * The first value of every key-value option, for both "--option=value" and "--option value" forms, along with its position
+   */
+  @NotNull
+  private final Map<String, KeyValueOccurrence> keyValueOptions = new HashMap<>();
+  @Nullable
+  private final PropertiesFile gradleUserHomeProperties;
+  @NotNull
+  private final PropertiesFile projectProperties;
+
+  GradleOptionsSnapshot(@NotNull List<String> gradleTasks,
+                        @NotNull List<String> gradleParams,
+                        @Nullable File gradleUserHome,
+                        @NotNull File projectDirectory) {
+    List<String> arguments = new ArrayList<>(gradleTasks.size() + gradleParams.size());
+    arguments.addAll(gradleTasks);
+    arguments.addAll(gradleParams);
+    commandLineArguments = Collections.unmodifiableList(arguments);
+    commandLineArgumentSet = new HashSet<>(arguments);
+
+    for (int i = 0; i < arguments.size(); i++) {
+      String argument = arguments.get(i);
+      int separator = argument.indexOf('=');
+      if (separator >= 0) {
+        keyValueOptions.putIfAbsent(argument.substring(0, separator), new KeyValueOccurrence(i, extractEqualSignSeparatedParamValue(argument)));
+      }
+      if (i + 1 < arguments.size()) {
+        keyValueOptions.putIfAbsent(argument, new KeyValueOccurrence(i, arguments.get(i + 1)));
+      }
+    }
+
+    gradleUserHomeProperties = gradleUserHome != null
+                               ? new PropertiesFile(new File(gradleUserHome, GRADLE_PROPERTIES_FILENAME), GradleOptionSource.GRADLE_USER_HOME_PROPERTIES)
+                               : null;
+    projectProperties = new PropertiesFile(new File(projectDirectory, GRADLE_PROPERTIES_FILENAME), GradleOptionSource.PROJECT_PROPERTIES);
+  }
+
+  /**
+   * @return Gradle tasks followed by Gradle parameters
+   */
+  @NotNull
+  public List<String> getCommandLineArguments() {
+    return commandLineArguments;
+  }
+
+  /**
+   * Reads the gradle.properties files right away instead of on the first lookup,
+   * so a snapshot prepared in the background doesn't touch the file system when the options are fetched later.
+   */
+  public void readPropertiesFiles() {
+    if (gradleUserHomeProperties != null) {
+      gradleUserHomeProperties.getContent();
+    }
+    projectProperties.getContent();
+  }
+
+  /**
+   * Fetch a gradle option value, considering the priority of the places it can be set in, see {@link GradleOptionSource}.
+   *
+   * @param optionType                  how the option is passed through the command line
+   * @param optionNames                 command line option names
+   * @param optionDisablingNames        command line option names disabling a {@link GradleOptionType#BOOLEAN} option
+   * @param gradlePropertiesOptionNames gradle.properties keys of the option, in descending order of priority
+   * @return option value with the place it was taken from, if it has been detected
+   * empty {@link Optional}, if no information about the option is found
+   */
+  @NotNull
+  public Optional<GradleOptionValue> fetchOptionValue(@NotNull GradleOptionType optionType,
+                                                      @NotNull Collection<String> optionNames,
+                                                      @NotNull Collection<String> optionDisablingNames,
+                                                      @NotNull Collection<String> gradlePropertiesOptionNames) {
+    Optional<GradleOptionValue> optionFromCommandLine = checkCommandLineArgs(optionType, optionNames, optionDisablingNames);
+    if (optionFromCommandLine.isPresent()) {
+      return optionFromCommandLine;
+    }
+
+    if (gradleUserHomeProperties != null) {
+      Optional<GradleOptionValue> optionFromGradleUserHomeDir = gradleUserHomeProperties.fetch(gradlePropertiesOptionNames);
+      if (optionFromGradleUserHomeDir.isPresent()) {
+        return optionFromGradleUserHomeDir;
+      }
+    }
+
+    return projectProperties.fetch(gradlePropertiesOptionNames);
+  }
+
+  @NotNull
+  private Optional<GradleOptionValue> checkCommandLineArgs(@NotNull GradleOptionType optionType,
+                                                           @NotNull Collection<String> optionNames,
+                                                           @NotNull Collection<String> optionDisablingNames) {
+    switch (optionType) {
+      case BOOLEAN:
+        for (String it : optionNames) {
+          if (commandLineArgumentSet.contains(it)) {
+            return Optional.of(new GradleOptionValue(Boolean.TRUE.toString(), GradleOptionSource.COMMAND_LINE, it, null));
+          }
+        }
+        for (String it : optionDisablingNames) {
+          if (commandLineArgumentSet.contains(it)) {
+            return Optional.of(new GradleOptionValue(Boolean.FALSE.toString(), GradleOptionSource.COMMAND_LINE, it, null));
+          }
+        }
+        return Optional.empty();
+      case KEY_VALUE:
+        String firstName = null;
+        KeyValueOccurrence first = null;
+        for (String it : optionNames) {
+          KeyValueOccurrence occurrence = keyValueOptions.get(it);
+          if (occurrence != null && (first == null || occurrence.position < first.position)) {
+            firstName = it;
+            first = occurrence;
+          }
+        }
+        return first != null
+               ? Optional.of(new GradleOptionValue(first.value, GradleOptionSource.COMMAND_LINE, firstName, null))
+               : Optional.empty();
+      default:
+        throw new IllegalStateException("Unsupported GradleOptionType: " + optionType);
+    }
+  }
+
+  private static class KeyValueOccurrence {
+    private final int position;
+    @NotNull
+    private final String value;
+
+    private KeyValueOccurrence(int position, @NotNull String value) {
+      this.position = position;
+      this.value = value;
+    }
+  }
+
+  private static class PropertiesFile {
+    @NotNull
+    private final File file;
+    @NotNull
+    private final GradleOptionSource source;
+    private boolean read;
+    @Nullable
+    private Properties content;
+
+    private PropertiesFile(@NotNull File file, @NotNull GradleOptionSource source) {
+      this.file = file;
+      this.source = source;
+    }
+
+    @NotNull
+    private Optional<GradleOptionValue> fetch(@NotNull Collection<String> gradlePropertiesOptionNames) {
+      Properties properties = getContent();
+      if (properties == null) {
+        return Optional.empty();
+      }
+
+      for (String optionName : gradlePropertiesOptionNames) {
+        if (properties.containsKey(optionName)) {
+          String optionValue = (String) properties.get(optionName);
+          return Optional.of(new GradleOptionValue(optionValue, source, optionName, file));
+        }
+      }
+
+      return Optional.empty();
+    }
+
+    @Nullable
+    private Properties getContent() {
+      if (!read) {
+        read = true;
+        if (file.isFile()) {
+          try {
+            content = GradleRunnerFileUtil.readProperties(file);
+          } catch (IOException ignore) {
+          }
+        }
+      }
+      return content;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package jetbrains.buildServer.gradle.agent.propertySplit;
 
+import com.intellij.openapi.diagnostic.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -13,8 +14,15 @@ import static jetbrains.buildServer.gradle.runtime.service.TeamCityBuildParamete
 
 public class TeamCityBuildPropertiesGradleSplitter implements GradleBuildPropertiesSplitter {
 
+  private static final Logger LOG = Logger.getInstance(TeamCityBuildPropertiesGradleSplitter.class);
+
   private static final String TEAMCITY_CONFIGURATION_PROPERTIES_KEY = "teamcity.configuration.properties.file";
 
+  /**
+   * The longest matching prefix decides if a property is dynamic
+   */
+  private static final PropertyPrefixTrie<Boolean> DYNAMIC_PROPERTY_PREFIXES = new PropertyPrefixTrie<>(createDynamicPropertyPrefixes());
+
   @Override
   public SplitablePropertyFile getType() {
     return SplitablePropertyFile.TEAMCITY_BUILD_PROPERTIES;
@@ -31,9 +39,23 @@ public class TeamCityBuildPropertiesGradleSplitter implements GradleBuildPropert
 
     Properties teamCityBuildProperties = readProperties(propertyFile);
 
+    writeIndex(teamCityBuildProperties, propertyFile);
+
     splitInternal(teamCityBuildProperties, staticPropertyFile, buildTempDir);
   }
 
+  /**
+   * The launcher and the init script look up single parameters in the indexed sidecar instead of parsing the whole file again.
+   * The sidecar is optional, the readers fall back to the properties file when it's missing.
+   */
+  private void writeIndex(@NotNull Properties teamCityBuildProperties, @NotNull File propertyFile) {
+    try {
+      IndexedPropertiesFile.write(teamCityBuildProperties, propertyFile);
+    } catch (IOException e) {
+      LOG.warnAndDebugDetails("Couldn't write the indexed sidecar of " + propertyFile.getAbsolutePath() + ", the properties file is read instead", e);
+    }
+  }
+
   private void splitInternal(@NotNull Properties teamCityBuildProperties,
                              @NotNull File staticPropertyFile,
                              @NotNull File buildTempDir) throws RunBuildException {
@@ -62,47 +84,34 @@ public class TeamCityBuildPropertiesGradleSplitter implements GradleBuildPropert
    * Then we process it as regular parameter.
    * more about dependency parameters: https://www.jetbrains.com/help/teamcity/predefined-build-parameters.html#Dependency+Parameters
    *
+   * All the "teamcity." properties are dynamic, except for several well-known static groups, but "teamcity.build.id" is dynamic again.
+   *
    * @return true - the property is dynamic
    */
   public boolean isDynamicProperty(@NotNull String propertyKey) {
+    int nameStart = 0;
     if (propertyKey.startsWith("dep.")) {
-      propertyKey = propertyKey.substring(propertyKey.indexOf('.', 4) + 1);
+      nameStart = propertyKey.indexOf('.', 4) + 1;
     }
 
-    if (propertyKey.startsWith("build.")) {
-      return true;
-    }
-
-    if (propertyKey.startsWith("teamcity.build.id")) {
-      return true;
-    }
-
-    if (propertyKey.startsWith("teamcity.")) {
-      if (propertyKey.startsWith("teamcity.build.")) {
-        return false;
-      }
-      if (propertyKey.startsWith("teamcity.buildConfName")) {
-        return false;
-      }
-      if (propertyKey.startsWith("teamcity.buildType.")) {
-        return false;
-      }
-      if (propertyKey.startsWith("teamcity.configuration.")) {
-        return false;
-      }
-      if (propertyKey.startsWith("teamcity.runner.")) {
-        return false;
-      }
-      if (propertyKey.startsWith("teamcity.projectName")) {
-        return false;
-      }
-      if (propertyKey.startsWith("teamcity.tests.")) {
-        return false;
-      }
-      return true;
-    }
+    Boolean isDynamic = DYNAMIC_PROPERTY_PREFIXES.findLongestPrefix(propertyKey, nameStart);
+    return isDynamic != null && isDynamic;
+  }
 
-    return false;
+  @NotNull
+  private static Map<String, Boolean> createDynamicPropertyPrefixes() {
+    Map<String, Boolean> prefixes = new HashMap<>();
+    prefixes.put("build.", true);
+    prefixes.put("teamcity.", true);
+    prefixes.put("teamcity.build.", false);
+    prefixes.put("teamcity.build.id", true);
+    prefixes.put("teamcity.buildConfName", false);
+    prefixes.put("teamcity.buildType.", false);
+    prefixes.put("teamcity.configuration.", false);
+    prefixes.put("teamcity.runner.", false);
+    prefixes.put("teamcity.projectName", false);
+    prefixes.put("teamcity.tests.", false);
+    return prefixes;
   }
 
   /**
@@ -169,7 +178,7 @@ public class TeamCityBuildPropertiesGradleSplitter implements GradleBuildPropert
                                @NotNull GradleBuildProperties properties,
                                @NotNull File buildTempDir) throws RunBuildException {
     try {
-      GradleRunnerFileUtil.storeProperties(buildTempDir, properties, destination);
+      GradleRunnerFileUtil.storePropertiesIfChanged(buildTempDir, properties, destination);
     } catch (IOException e) {
       throw new RunBuildException("Couldn't store properties to file: name=" + destination.getName(), e);
     }
@@ -5,13 +5,22 @@ import jetbrains.buildServer.agent.BuildFinishedStatus
 import jetbrains.buildServer.agent.problems.ExitCodeProblemBuilder
 import jetbrains.buildServer.agent.runner.CommandExecution
 import jetbrains.buildServer.agent.runner.MultiCommandBuildSession
+import jetbrains.buildServer.gradle.GradleRunnerConstants.TEAMCITY_TEST_EVENTS_FILE_ENV_VAR
 import jetbrains.buildServer.gradle.agent.gradleExecution.GradleCommandExecution
+import jetbrains.buildServer.gradle.agent.gradleExecution.GradleCommandLinePreparation
 import jetbrains.buildServer.gradle.agent.gradleExecution.GradleCommandLineProvider
+import jetbrains.buildServer.gradle.agent.gradleExecution.GradleStepTimings
+import jetbrains.buildServer.gradle.agent.gradleExecution.TestEventsFileTailer
+import jetbrains.buildServer.gradle.agent.obsolete.GradleConnectorFeatureFlags.shouldUseObsoleteUserHomeDetection
 import jetbrains.buildServer.gradle.agent.obsolete.GradleConnectorFeatureFlags.shouldUseObsoleteVersionDetection
 import jetbrains.buildServer.gradle.agent.obsolete.GradleConnectorProvider
 import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersion
 import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersionDetector
 import jetbrains.buildServer.gradle.agent.versionDetection.VersionResolutionCheckExtensions.isGradleVersionNotNeeded
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import kotlin.concurrent.thread
 
 class GradleRunnerBuildSession(
     private val gradleRunnerContext: GradleRunnerContext,
@@ -32,6 +41,10 @@ class GradleRunnerBuildSession(
     private var detectedGradleVersion: GradleVersion? = null
     private var gradleExecutionExitCode: Int = 0
 
+    private val timings = GradleStepTimings()
+    private var versionDetectionStartNanos: Long = 0
+    private var backgroundPreparation: CompletableFuture<GradleCommandLinePreparation>? = null
+
     override fun sessionStarted() {}
 
     override fun getNextCommand(): CommandExecution? {
@@ -47,11 +60,26 @@ class GradleRunnerBuildSession(
                         continue
                     }
 
+                    val knownGradleVersion = gradleVersionDetector.findKnownGradleVersion()
+                    if (knownGradleVersion != null) {
+                        detectedGradleVersion = knownGradleVersion
+                        continue
+                    }
+
+                    // only the version-dependent decisions are left for the time the Gradle --version process finishes;
+                    // the obsolete user home detection uses the project connector, which is kept on the session thread
+                    if (!shouldUseObsoleteUserHomeDetection(gradleRunnerContext)) {
+                        backgroundPreparation = prepareInBackground()
+                    }
+                    versionDetectionStartNanos = System.nanoTime()
                     return gradleVersionDetector.detectGradleVersion(isUnix) { detectedGradleVersion = it }
                 }
 
                 Phase.GRADLE_EXECUTION -> {
                     currentPhase = Phase.DONE
+                    if (versionDetectionStartNanos != 0L) {
+                        timings.record("version detection", (System.nanoTime() - versionDetectionStartNanos) / 1_000_000)
+                    }
                     return executeGradle()
                 }
 
@@ -62,15 +90,58 @@ class GradleRunnerBuildSession(
     }
 
     private fun executeGradle(): CommandExecution {
+        val preparation = awaitPreparation()
+        val commandLine = timings.measure("command line composition") {
+            gradleCommandLineProvider.composeGradleCommandLine(isUnix, detectedGradleVersion, preparation)
+        }
+        gradleRunnerContext.flowLogger.message("Gradle step prepared: ${timings.describe()}")
+
+        val testEventsFileTailer = commandLine.environment[TEAMCITY_TEST_EVENTS_FILE_ENV_VAR]?.let {
+            TestEventsFileTailer(File(it), gradleRunnerContext.flowLogger)
+        }
+
         return GradleCommandExecution(
-            gradleCommandLineProvider.getGradleCommandLine(isUnix, detectedGradleVersion, connectorProvider),
-            GradleLoggingListener(gradleRunnerContext.flowLogger)
+            commandLine,
+            GradleLoggingListener(gradleRunnerContext.flowLogger),
+            testEventsFileTailer
         ) { exitCode ->
             gradleExecutionExitCode = exitCode
         }
     }
 
+    private fun prepareInBackground(): CompletableFuture<GradleCommandLinePreparation> {
+        val result = CompletableFuture<GradleCommandLinePreparation>()
+        thread(isDaemon = true, name = "Gradle step preparation") {
+            try {
+                result.complete(gradleCommandLineProvider.prepareGradleCommandLine(connectorProvider, timings))
+            } catch (t: Throwable) {
+                result.completeExceptionally(t)
+            }
+        }
+        return result
+    }
+
+    private fun awaitPreparation(): GradleCommandLinePreparation {
+        val preparation = backgroundPreparation ?: return gradleCommandLineProvider.prepareGradleCommandLine(connectorProvider, timings)
+        return try {
+            preparation.get()
+        } catch (e: ExecutionException) {
+            // rethrow the original RunBuildException or RuntimeException
+            throw e.cause ?: e
+        }
+    }
+
+    private fun awaitBackgroundPreparation() {
+        try {
+            backgroundPreparation?.join()
+        } catch (_: Exception) {
+            // the error is reported when the preparation result is awaited for the Gradle execution
+        }
+    }
+
     override fun sessionFinished(): BuildFinishedStatus {
+        // the preparation may still be running if the version detection failed
+        awaitBackgroundPreparation()
         connectorProvider.close()
 
         if (gradleExecutionExitCode == 0 || !gradleRunnerContext.build.failBuildOnExitCode) {
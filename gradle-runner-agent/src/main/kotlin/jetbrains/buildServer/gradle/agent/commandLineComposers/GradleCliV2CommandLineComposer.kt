@@ -1,13 +1,18 @@
 package jetbrains.buildServer.gradle.agent.commandLineComposers
 
 import jetbrains.buildServer.ComparisonFailureUtil
+import jetbrains.buildServer.RunBuildException
 import jetbrains.buildServer.agent.BuildProgressLogger
 import jetbrains.buildServer.agent.ClasspathUtil
 import jetbrains.buildServer.gradle.GradleRunnerConstants.*
 import jetbrains.buildServer.gradle.agent.GradleDaemonEnhancementClassesProvider
 import jetbrains.buildServer.gradle.agent.GradleLaunchMode
+import jetbrains.buildServer.gradle.agent.gradleExecution.TestEventsFileTailer
 import jetbrains.buildServer.gradle.agent.tasks.GradleTasksComposer
+import jetbrains.buildServer.gradle.runtime.output.ServiceMessageEncoder
+import jetbrains.buildServer.util.FileUtil
 import java.io.File
+import java.io.IOException
 
 class GradleCliV2CommandLineComposer(tasksComposer: GradleTasksComposer) : GradleCliCommandLineComposerBase(tasksComposer) {
     override fun getLaunchMode(): GradleLaunchMode = GradleLaunchMode.COMMAND_LINE_V2
@@ -17,7 +22,8 @@ class GradleCliV2CommandLineComposer(tasksComposer: GradleTasksComposer) : Gradl
             getEnvVariablesFromSystemProperties(parameters) +
             getEnvVariablesFromConfigParameters(parameters) +
             getDaemonEnhancementClassesEnvVariable(parameters) +
-            getInitScriptClassPathEnvVariable(parameters)
+            getInitScriptClassPathEnvVariable(parameters) +
+            getTestEventsFileEnvVariable(parameters)
 
         return buildMap {
             putAll(parameters.env)
@@ -43,6 +49,9 @@ class GradleCliV2CommandLineComposer(tasksComposer: GradleTasksComposer) : Gradl
     private fun getEnvVariablesFromConfigParameters(parameters: GradleCommandLineComposerParameters): Sequence<Pair<String, String>> = sequence {
         listOf(
             GRADLE_RUNNER_DO_NOT_POPULATE_GRADLE_PROPERTIES_CONFIG_PARAM to "TEAMCITY_DO_NOT_POPULATE_GRADLE_PROPERTIES",
+            GRADLE_RUNNER_LAZY_GRADLE_PROPERTIES_CONFIG_PARAM to "TEAMCITY_LAZY_GRADLE_PROPERTIES",
+            GRADLE_RUNNER_BATCHED_SERVICE_MESSAGES_CONFIG_PARAM to "TEAMCITY_BATCHED_SERVICE_MESSAGES",
+            GRADLE_RUNNER_TEST_OUTPUT_MEMORY_BUDGET_CONFIG_PARAM to "TEAMCITY_TEST_OUTPUT_MEMORY_BUDGET",
             USE_TEST_RETRY_PLUGIN_CONFIG_PARAM to "TEAMCITY_USE_TEST_RETRY_PLUGIN",
             TEST_TASK_JVM_ARG_PROVIDER_DISABLED_CONFIG_PARAM to "TEAMCITY_TEST_TASK_JVM_ARGUMENTS_PROVIDER_DISABLED",
             TEST_NAME_FORMAT_CONFIG_PARAM to "TEAMCITY_TEST_NAME_FORMAT",
@@ -72,16 +81,63 @@ class GradleCliV2CommandLineComposer(tasksComposer: GradleTasksComposer) : Gradl
      * This allows using these classes in the init script.
      */
     private fun getInitScriptClassPathEnvVariable(parameters: GradleCommandLineComposerParameters): Pair<String, String> =
-        TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR to getInitScriptClasspath(parameters.logger)
+        TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR to getInitScriptClasspath(parameters)
 
-    private fun getInitScriptClasspath(logger: BuildProgressLogger): String {
-        return listOf(
-            ComparisonFailureUtil::class.java,  // runtime-util
+    /**
+     * Provides env variable name-and-value pairs with the file the init script writes the service messages of test tasks to,
+     * if it is enabled. The file is read by the agent while Gradle is running, see [TestEventsFileTailer].
+     * The init script checks only the boolean flag at configuration time and reads the path when the writing starts, and the path doesn't change
+     * between builds, so neither invalidates the configuration cache. The build temp directory is per build, and the steps of a build run one by one.
+     */
+    private fun getTestEventsFileEnvVariable(parameters: GradleCommandLineComposerParameters): Sequence<Pair<String, String>> = sequence {
+        val isTestEventsFileEnabled =
+            parameters.configParameters[GRADLE_RUNNER_TEST_EVENTS_FILE_CONFIG_PARAM]?.toBooleanStrictOrNull() ?: false
+
+        // the agent reads the file by the path the init script writes it to, which is different inside a container
+        if (isTestEventsFileEnabled && !parameters.runnerContext.isVirtualContext) {
+            val testEventsFile = File(parameters.runnerContext.build.buildTempDirectory, TEST_EVENTS_FILE_NAME)
+            yield(TEAMCITY_TEST_EVENTS_FILE_ENABLED_ENV_VAR to "true")
+            yield(TEAMCITY_TEST_EVENTS_FILE_ENV_VAR to testEventsFile.absolutePath)
+        }
+    }
+
+    private fun getInitScriptClasspath(parameters: GradleCommandLineComposerParameters): String {
+        return listOfNotNull(
+            // runtime-util is optional, the init script falls back to its own comparison failure handling without it
+            getCanonicalPathForClass(ComparisonFailureUtil::class.java, parameters.logger),
+            getRuntimeClasspathEntry(parameters),
         )
-            .mapNotNull { getCanonicalPathForClass(it, logger) }
             .joinToString(File.pathSeparator)
     }
 
+    /**
+     * The init script imports the classes of gradle-runner-runtime and can't be compiled without them, so the step fails right away
+     * if the library can't be put on the init script classpath.
+     * Like the Tooling API launcher libs, the library is copied to the build temp directory when the build runs in a container,
+     * as the agent directories may not be available there (see TW-87034).
+     */
+    private fun getRuntimeClasspathEntry(parameters: GradleCommandLineComposerParameters): String {
+        val classpathEntry = getCanonicalPathForClass(ServiceMessageEncoder::class.java, parameters.logger)
+            ?: throw RunBuildException("Failed to create init script classpath: couldn't find the gradle-runner-runtime library")
+
+        val relocateLib = parameters.runnerContext.isVirtualContext &&
+            (parameters.configParameters[GRADLE_RUNNER_PLACE_LIBS_FOR_TOOLING_IN_TEMP_DIR]?.toBooleanStrictOrNull() ?: true)
+        if (!relocateLib) {
+            return classpathEntry
+        }
+
+        val library = File(classpathEntry)
+        val target = parameters.buildTempDir.resolve("agentLibs").resolve(library.name).toFile()
+        try {
+            if (!target.exists()) {
+                if (library.isFile) FileUtil.copy(library, target) else FileUtil.copyDir(library, target)
+            }
+        } catch (e: IOException) {
+            throw RunBuildException("Failed to create init script classpath: couldn't copy $library to ${target.parentFile}", e)
+        }
+        return target.absolutePath
+    }
+
     private fun getCanonicalPathForClass(javaClass: Class<*>, logger: BuildProgressLogger): String? {
         val classpathEntry = ClasspathUtil.getClasspathEntry(javaClass)
         if (classpathEntry == null) {
@@ -96,4 +152,8 @@ class GradleCliV2CommandLineComposer(tasksComposer: GradleTasksComposer) : Gradl
             null
         }
     }
+
+    private companion object {
+        const val TEST_EVENTS_FILE_NAME = "gradle-test-events.bin"
+    }
 }
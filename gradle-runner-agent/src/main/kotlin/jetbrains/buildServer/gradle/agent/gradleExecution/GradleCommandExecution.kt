@@ -9,6 +9,7 @@ import java.io.File
 class GradleCommandExecution(
     private val gradleCommandLine: ProgramCommandLine,
     private val loggingListener: ProcessListener,
+    private val testEventsFileTailer: TestEventsFileTailer? = null,
     private val onFinished: (Int) -> Unit
 ) : CommandExecution {
 
@@ -18,21 +19,42 @@ class GradleCommandExecution(
 
     override fun processStarted(programCommandLine: String, workingDirectory: File) {
         loggingListener.processStarted(programCommandLine, workingDirectory)
+        testEventsFileTailer?.start()
     }
 
     override fun onStandardOutput(text: String) {
+        readTestEventsIfTaskBoundary(text)
         loggingListener.onStandardOutput(text)
     }
 
     override fun onErrorOutput(text: String) {
+        readTestEventsIfTaskBoundary(text)
         loggingListener.onErrorOutput(text)
     }
 
     override fun processFinished(exitCode: Int) {
+        // the test events precede the Gradle failure report
+        testEventsFileTailer?.stop()
         loggingListener.processFinished(exitCode)
         onFinished(exitCode)
     }
 
+    /**
+     * The test events written before a task header or a build result line precede it in the build log.
+     * The other lines are logged right away, the file is read by the tailer's own thread then.
+     */
+    private fun readTestEventsIfTaskBoundary(text: String) {
+        if (testEventsFileTailer == null || text.isEmpty()) return
+        // the first character tells whether the line may be a boundary, so most of the lines are not compared with the prefixes at all
+        val isTaskBoundary = when (text[0]) {
+            '>' -> text.startsWith("> Task ")
+            'B' -> text.startsWith("BUILD ")
+            'F' -> text.startsWith("FAILURE:")
+            else -> false
+        }
+        if (isTaskBoundary) testEventsFileTailer.readAvailable()
+    }
+
     override fun interruptRequested(): TerminationAction = TerminationAction.KILL_PROCESS_TREE
 
     override fun isCommandLineLoggingEnabled(): Boolean = true
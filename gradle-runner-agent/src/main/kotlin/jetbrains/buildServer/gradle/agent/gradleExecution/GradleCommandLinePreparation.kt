@@ -0,0 +1,18 @@
+package jetbrains.buildServer.gradle.agent.gradleExecution
+
+import jetbrains.buildServer.gradle.agent.gradleOptions.GradleOptionsSnapshot
+
+/**
+ * The part of the Gradle command line that doesn't depend on the Gradle version,
+ * so it can be prepared while the Gradle version is being detected.
+ */
+class GradleCommandLinePreparation(
+    val gradleTasks: List<String>,
+    val userDefinedParams: List<String>,
+    /**
+     * null if the wrapper properties file is missing, then the command line is composed without analyzing the Gradle options
+     */
+    val gradleOptions: GradleOptionsSnapshot?,
+    val unsupportedByToolingArgs: Set<String>,
+    val timings: GradleStepTimings
+)
@@ -10,8 +10,6 @@ import jetbrains.buildServer.gradle.agent.obsolete.GradleConnectorProvider
 import jetbrains.buildServer.gradle.agent.tasks.GradleTasksComposer
 import jetbrains.buildServer.gradle.agent.versionDetection.GradleVersion
 import java.util.*
-import java.util.stream.Collectors
-import java.util.stream.Stream
 
 class GradleCommandLineProvider(
     private val gradleRunnerContext: GradleRunnerContext,
@@ -26,16 +24,53 @@ class GradleCommandLineProvider(
     private val logger = gradleRunnerContext.flowLogger
     private val workingDirectory = gradleRunnerContext.buildRunnerContext.workingDirectory
 
-    fun getGradleCommandLine(isUnix: Boolean, detectedGradleVersion: GradleVersion?, connectorProvider: GradleConnectorProvider): ProgramCommandLine {
+    fun getGradleCommandLine(isUnix: Boolean, detectedGradleVersion: GradleVersion?, connectorProvider: GradleConnectorProvider): ProgramCommandLine =
+        composeGradleCommandLine(isUnix, detectedGradleVersion, prepareGradleCommandLine(connectorProvider))
+
+    /**
+     * Does everything that doesn't depend on the Gradle version: Gradle user home detection, reading the Gradle options and analyzing the arguments.
+     * Doesn't write to the build log, so it can run on another thread while the Gradle version is being detected.
+     * The only exception is the obsolete Gradle user home detection, which connects to Gradle through the Tooling API and may log a warning,
+     * so the preparation must run on the session thread when it is enabled.
+     */
+    fun prepareGradleCommandLine(connectorProvider: GradleConnectorProvider, timings: GradleStepTimings = GradleStepTimings()): GradleCommandLinePreparation {
         val gradleTasks = tasksComposer.getGradleTasks(gradleRunnerContext.buildRunnerContext.runnerParameters)
         val userDefinedParams = ConfigurationParamsUtil.getGradleParams(gradleRunnerContext.buildRunnerContext.runnerParameters)
 
         if (gradleRunnerContext.isWrapperPropertiesFileMissing) {
+            return GradleCommandLinePreparation(gradleTasks, userDefinedParams, null, emptySet(), timings)
+        }
+
+        val gradleUserHome = timings.measure("Gradle user home detection") {
+            gradleUserHomeManager.detectGradleUserHome(
+                gradleTasks,
+                userDefinedParams,
+                gradleRunnerContext,
+                connectorProvider
+            ).orElse(null)
+        }
+        // the command line and the gradle.properties files are parsed once for all the checks
+        val gradleOptions = timings.measure("reading Gradle options") {
+            gradleConfigurationCacheDetector.createOptionsSnapshot(gradleTasks, userDefinedParams, gradleUserHome, workingDirectory).apply { readPropertiesFiles() }
+        }
+        val unsupportedByToolingArgs = timings.measure("argument analysis") {
+            commandLineParametersProcessor.obtainUnsupportedArguments(gradleOptions.commandLineArguments)
+        }
+
+        return GradleCommandLinePreparation(gradleTasks, userDefinedParams, gradleOptions, unsupportedByToolingArgs, timings)
+    }
+
+    /**
+     * Makes the version-dependent decisions and composes the command line from the prepared part
+     */
+    fun composeGradleCommandLine(isUnix: Boolean, detectedGradleVersion: GradleVersion?, preparation: GradleCommandLinePreparation): ProgramCommandLine {
+        val gradleOptions = preparation.gradleOptions
+        if (gradleOptions == null) {
             return composerHolder.getCommandLineComposer(GradleLaunchMode.COMMAND_LINE).compose(
                 getComposerParameters(
                     gradleRunnerContext.environmentVariables,
-                    gradleTasks,
-                    userDefinedParams,
+                    preparation.gradleTasks,
+                    preparation.userDefinedParams,
                     null,
                     gradleRunnerContext.gradleExecutablePath,
                     isUnix,
@@ -44,21 +79,8 @@ class GradleCommandLineProvider(
             )
         }
 
-        val gradleUserHome = gradleUserHomeManager.detectGradleUserHome(
-            gradleTasks,
-            userDefinedParams,
-            gradleRunnerContext,
-            connectorProvider
-        ).orElse(null)
-        val configurationCacheEnabled = gradleConfigurationCacheDetector.isConfigurationCacheEnabled(
-            logger, gradleTasks, userDefinedParams, gradleUserHome, workingDirectory, detectedGradleVersion
-        )
-        val configurationCacheProblemsIgnored = gradleConfigurationCacheDetector.areConfigurationCacheProblemsIgnored(
-            logger, gradleTasks, userDefinedParams, gradleUserHome, workingDirectory, detectedGradleVersion
-        )
-        val unsupportedByToolingArgs = commandLineParametersProcessor.obtainUnsupportedArguments(
-            Stream.concat(gradleTasks.stream(), userDefinedParams.stream()).collect(Collectors.toList())
-        )
+        val configurationCacheEnabled = gradleConfigurationCacheDetector.isConfigurationCacheEnabled(logger, gradleOptions, detectedGradleVersion)
+        val configurationCacheProblemsIgnored = gradleConfigurationCacheDetector.areConfigurationCacheProblemsIgnored(logger, gradleOptions, detectedGradleVersion)
 
         val selectionResult = gradleLaunchModeSelector.selectMode(
             GradleLaunchModeSelector.Parameters
@@ -68,14 +90,14 @@ class GradleCommandLineProvider(
                 .withGradleVersion(detectedGradleVersion)
                 .withConfigurationCacheEnabled(configurationCacheEnabled)
                 .withConfigurationCacheProblemsIgnored(configurationCacheProblemsIgnored)
-                .withUnsupportedByToolingArgs(unsupportedByToolingArgs)
+                .withUnsupportedByToolingArgs(preparation.unsupportedByToolingArgs)
                 .build()
         )
 
         val composerParameters = getComposerParameters(
             gradleRunnerContext.environmentVariables,
-            gradleTasks,
-            userDefinedParams,
+            preparation.gradleTasks,
+            preparation.userDefinedParams,
             configurationCacheEnabled,
             gradleRunnerContext.gradleExecutablePath,
             isUnix,
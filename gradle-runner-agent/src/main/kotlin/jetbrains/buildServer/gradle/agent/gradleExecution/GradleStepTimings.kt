@@ -0,0 +1,29 @@
+package jetbrains.buildServer.gradle.agent.gradleExecution
+
+/**
+ * Durations of the phases preparing a Gradle step, reported to the build log once the Gradle command line is composed.
+ * Phases can be measured by different threads.
+ */
+class GradleStepTimings {
+    private val timings = LinkedHashMap<String, Long>()
+
+    fun <T> measure(phase: String, action: () -> T): T {
+        val start = System.nanoTime()
+        try {
+            return action()
+        } finally {
+            record(phase, (System.nanoTime() - start) / 1_000_000)
+        }
+    }
+
+    @Synchronized
+    fun record(phase: String, millis: Long) {
+        timings[phase] = millis
+    }
+
+    /**
+     * @return the timings in the order they were recorded, e.g. "version detection 812 ms, Gradle user home detection 0 ms"
+     */
+    @Synchronized
+    fun describe(): String = timings.entries.joinToString(", ") { "${it.key} ${it.value} ms" }
+}
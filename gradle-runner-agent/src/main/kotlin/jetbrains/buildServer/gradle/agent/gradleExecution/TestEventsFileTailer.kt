@@ -0,0 +1,96 @@
+package jetbrains.buildServer.gradle.agent.gradleExecution
+
+import jetbrains.buildServer.agent.BuildProgressLogger
+import jetbrains.buildServer.gradle.runtime.output.ServiceMessageEncoder
+import jetbrains.buildServer.gradle.runtime.output.TestEventsFileReader
+import jetbrains.buildServer.util.FileUtil
+import java.io.File
+import java.io.IOException
+import kotlin.concurrent.thread
+
+/**
+ * Passes the service messages of test tasks, which the init script writes to the test events file instead of the console output,
+ * to the build log while Gradle is running. The file is read every [pollIntervalMillis] ms and once more after the Gradle process finishes.
+ *
+ * The init script writes the queued messages of a task to the file when the task finishes, and the file is also read before the task header
+ * and the build result lines of the Gradle console output are logged (see [readAvailable]). So the test events of a finished task precede
+ * the next task's output. Within a running test task the events may still be logged up to [pollIntervalMillis] ms after the console output
+ * printed at the same time, as it is when the messages are written to the console output in blocks.
+ * The messages are logged as the service message text and parsed by the agent like the ones printed to the console.
+ *
+ * A file left by a previous step of the build is deleted on creation, which must happen before the Gradle process starts.
+ */
+class TestEventsFileTailer(
+    private val file: File,
+    private val logger: BuildProgressLogger,
+    private val pollIntervalMillis: Long = 100
+) {
+    private val reader = TestEventsFileReader(file)
+    private var readerThread: Thread? = null
+
+    @Volatile
+    private var stopped = false
+    @Volatile
+    private var failed = false
+    /**
+     * Guarded by [reader]
+     */
+    private var closed = false
+
+    init {
+        FileUtil.delete(file)
+    }
+
+    fun start() {
+        readerThread = thread(isDaemon = true, name = "Gradle test events reader") {
+            try {
+                while (!stopped && !failed) {
+                    read()
+                    Thread.sleep(pollIntervalMillis)
+                }
+            } catch (_: InterruptedException) {
+            }
+        }
+    }
+
+    /**
+     * Logs the test events written to the file so far, does nothing once the tailer is stopped
+     */
+    fun readAvailable() {
+        if (stopped) return
+        read()
+    }
+
+    /**
+     * Reads the rest of the file and deletes it
+     */
+    fun stop() {
+        stopped = true
+        readerThread?.let {
+            it.interrupt()
+            it.join()
+        }
+        read()
+        synchronized(reader) {
+            closed = true
+            try {
+                reader.close()
+            } catch (_: IOException) {
+            }
+        }
+        FileUtil.delete(file)
+    }
+
+    private fun read() {
+        // the reader is shared by the polling thread and the thread the console output is logged in
+        synchronized(reader) {
+            if (failed || closed) return
+            try {
+                reader.readAvailable { name, attributes -> logger.message(ServiceMessageEncoder.encode(name, attributes)) }
+            } catch (e: IOException) {
+                failed = true
+                logger.warning("Failed to read the test events file $file, the rest of the test events is not reported: ${e.message}")
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package jetbrains.buildServer.gradle.agent.versionDetection
+
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * Keeps the Gradle versions detected by `gradle --version` on the agent, so the next builds using the same distribution don't launch Gradle again.
+ *
+ * A wrapper distribution is keyed by its `distributionUrl` and `distributionSha256Sum`,
+ * a Gradle home is keyed by its canonical path and the names of its libraries.
+ */
+class GradleVersionCache(private val cacheDir: File) {
+
+    fun get(key: String): GradleVersion? {
+        val entry = File(cacheDir, key + ENTRY_EXTENSION)
+        if (!entry.isFile) return null
+
+        return try {
+            entry.readText(Charsets.UTF_8).trim().takeIf { it.isNotEmpty() }?.let { GradleVersion(it) }
+        } catch (e: IOException) {
+            null
+        }
+    }
+
+    @Throws(IOException::class)
+    fun put(key: String, version: GradleVersion) {
+        val entry = File(cacheDir, key + ENTRY_EXTENSION)
+        Files.createDirectories(cacheDir.toPath())
+        // several builds can run on the agent at once, so the entry is replaced atomically
+        val tempFile = Files.createTempFile(cacheDir.toPath(), key, ".tmp")
+        try {
+            Files.write(tempFile, version.version.toByteArray(Charsets.UTF_8))
+            Files.move(tempFile, entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } finally {
+            Files.deleteIfExists(tempFile)
+        }
+    }
+
+    companion object {
+        private const val ENTRY_EXTENSION = ".version"
+
+        /**
+         * @return the cache key of the wrapper distribution, or null if the wrapper properties don't define it
+         */
+        fun computeWrapperKey(wrapperProperties: File): String? {
+            val properties = KnownGradleVersionReader.readProperties(wrapperProperties) ?: return null
+            val distributionUrl = properties.getProperty(KnownGradleVersionReader.DISTRIBUTION_URL_PROPERTY)?.trim()
+            if (distributionUrl.isNullOrEmpty()) return null
+
+            return hash("wrapper", distributionUrl, properties.getProperty(KnownGradleVersionReader.DISTRIBUTION_SHA256_SUM_PROPERTY)?.trim())
+        }
+
+        /**
+         * @return the cache key of the Gradle home, or null if it isn't a directory
+         */
+        fun computeGradleHomeKey(gradleHome: File): String? {
+            if (!gradleHome.isDirectory) return null
+
+            val canonicalPath = try {
+                gradleHome.canonicalPath
+            } catch (e: IOException) {
+                gradleHome.absolutePath
+            }
+            val libraries = File(gradleHome, "lib").list()?.sorted().orEmpty()
+            return hash("home", canonicalPath, *libraries.toTypedArray())
+        }
+
+        private fun hash(vararg values: String?): String {
+            val digest = MessageDigest.getInstance("SHA-256")
+            values.forEach {
+                digest.update(it.toString().toByteArray(Charsets.UTF_8))
+                digest.update(0)
+            }
+            return digest.digest().joinToString("") { "%02x".format(it) }
+        }
+    }
+}
@@ -4,14 +4,49 @@ import jetbrains.buildServer.agent.runner.CommandExecution
 import jetbrains.buildServer.gradle.agent.GradleRunnerContext
 import jetbrains.buildServer.gradle.agent.obsolete.GradleConnectorProvider
 import jetbrains.buildServer.gradle.agent.obsolete.ObsoleteGradleVersionDetector
+import java.io.IOException
+
+class GradleVersionDetector(
+    private val gradleRunnerContext: GradleRunnerContext,
+    private val versionCache: GradleVersionCache? = null
+) {
+    private val versionCacheKey: String? by lazy {
+        when {
+            versionCache == null -> null
+            gradleRunnerContext.useWrapper -> gradleRunnerContext.gradleWrapperProperties?.let { GradleVersionCache.computeWrapperKey(it) }
+            else -> gradleRunnerContext.gradleHome?.let { GradleVersionCache.computeGradleHomeKey(it) }
+        }
+    }
 
-class GradleVersionDetector(private val gradleRunnerContext: GradleRunnerContext) {
     @Deprecated("Remove in a few releases after 2026.1 if the new version detection implementation works without problems")
     fun detectGradleVersion(connectorProvider: GradleConnectorProvider): GradleVersion? {
         val version = ObsoleteGradleVersionDetector().detect(connectorProvider.getConnector(), gradleRunnerContext.flowLogger)
         return if (version.isPresent) GradleVersion(version.get().version) else null
     }
 
+    /**
+     * Looks the Gradle version up without launching Gradle: in the wrapper distribution URL, in the names of the Gradle home libraries,
+     * and then in the versions detected by the previous builds on the agent.
+     * Returns null if the version is unknown or the lookup is disabled, then [detectGradleVersion] has to be used.
+     */
+    fun findKnownGradleVersion(): GradleVersion? {
+        if (versionCache == null) return null
+
+        val (version, source) = if (gradleRunnerContext.useWrapper) {
+            gradleRunnerContext.gradleWrapperProperties?.let { KnownGradleVersionReader.fromWrapperProperties(it) } to "the wrapper distribution URL"
+        } else {
+            gradleRunnerContext.gradleHome?.let { KnownGradleVersionReader.fromGradleHome(it) } to "the Gradle home libraries"
+        }
+        if (version != null) {
+            gradleRunnerContext.flowLogger.debug("Detected Gradle version: '$version' from $source")
+            return version
+        }
+
+        val cachedVersion = versionCacheKey?.let { versionCache.get(it) } ?: return null
+        gradleRunnerContext.flowLogger.debug("Detected Gradle version: '$cachedVersion' from the agent cache")
+        return cachedVersion
+    }
+
     fun detectGradleVersion(
         isUnix: Boolean,
         setDetectedGradleVersionCallback: (GradleVersion?) -> Unit
@@ -27,11 +62,21 @@ class GradleVersionDetector(private val gradleRunnerContext: GradleRunnerContext
                 gradleRunnerContext.flowLogger.warning("Couldn't parse the Gradle version from Gradle's '--version' output")
             } else {
                 gradleRunnerContext.flowLogger.debug("Detected Gradle version: '$detectedGradleVersion'")
+                storeDetectedGradleVersion(detectedGradleVersion)
                 setDetectedGradleVersionCallback(detectedGradleVersion)
             }
         }
     }
 
+    private fun storeDetectedGradleVersion(version: GradleVersion) {
+        val key = versionCacheKey ?: return
+        try {
+            versionCache?.put(key, version)
+        } catch (e: IOException) {
+            gradleRunnerContext.flowLogger.debug("Failed to store the detected Gradle version in the agent cache: $e")
+        }
+    }
+
     private fun parseGradleVersion(output: String): GradleVersion? {
         val matchResult = VERSION_PATTERN.find(output)
         if (matchResult == null) return null
@@ -0,0 +1,52 @@
+package jetbrains.buildServer.gradle.agent.versionDetection
+
+import java.io.File
+import java.io.IOException
+import java.util.Properties
+
+/**
+ * Reads the Gradle version from the files describing the distribution, without launching Gradle.
+ * Only release, release candidate and milestone versions are recognized, anything else has to be detected by `gradle --version`.
+ */
+object KnownGradleVersionReader {
+    private const val VERSION = """(\d+\.\d+(?:\.\d+)?(?:-(?:rc|milestone)-\d+)?)"""
+    private val DISTRIBUTION_URL_PATTERN = """(?:^|/)gradle-$VERSION-(?:bin|all)\.zip$""".toRegex()
+    private val LIBRARY_PATTERN = """^gradle-(?:launcher|core-api)-$VERSION\.jar$""".toRegex()
+
+    const val DISTRIBUTION_URL_PROPERTY = "distributionUrl"
+    const val DISTRIBUTION_SHA256_SUM_PROPERTY = "distributionSha256Sum"
+
+    /**
+     * @return the version from the `distributionUrl` of the wrapper properties, e.g. 8.5 for `.../gradle-8.5-bin.zip`
+     */
+    fun fromWrapperProperties(wrapperProperties: File): GradleVersion? {
+        val distributionUrl = readProperties(wrapperProperties)?.getProperty(DISTRIBUTION_URL_PROPERTY) ?: return null
+        return fromDistributionUrl(distributionUrl)
+    }
+
+    fun fromDistributionUrl(distributionUrl: String): GradleVersion? =
+        DISTRIBUTION_URL_PATTERN.find(distributionUrl.trim())?.let { GradleVersion(it.groupValues[1]) }
+
+    /**
+     * @return the version from the names of the Gradle home libraries, e.g. 8.5 for `lib/gradle-launcher-8.5.jar`
+     */
+    fun fromGradleHome(gradleHome: File): GradleVersion? {
+        val libraries = File(gradleHome, "lib").list() ?: return null
+        return libraries.asSequence()
+            .mapNotNull { LIBRARY_PATTERN.find(it) }
+            .map { GradleVersion(it.groupValues[1]) }
+            .firstOrNull()
+    }
+
+    fun readProperties(file: File): Properties? {
+        if (!file.isFile) return null
+        return try {
+            file.inputStream().buffered().use { input -> Properties().apply { load(input) } }
+        } catch (e: IOException) {
+            null
+        } catch (e: IllegalArgumentException) {
+            // malformed \uXXXX escape
+            null
+        }
+    }
+}
@@ -36,6 +36,30 @@ public class GradleRunnerConstants {
    * The 'project.teamcity' Gradle properties extension will not be provided as well.
    */
   public static final String GRADLE_RUNNER_DO_NOT_POPULATE_GRADLE_PROPERTIES_CONFIG_PARAM = "teamcity.internal.gradle.runner.doNotPopulateGradleProperties";
+  /**
+   * This param defaults to false. If set to true, properties from the 'teamcity.build.properties' file are added to the extra properties of the root project only.
+   * Subprojects resolve them on demand as properties inherited from the root project ('project.hasProperty(...)', 'project.findProperty(...)', '$buildProperty'),
+   * and get only the shared 'project.teamcity' map into their own extra properties. 'project.ext.has(...)' of a subproject doesn't see the root project properties.
+   */
+  public static final String GRADLE_RUNNER_LAZY_GRADLE_PROPERTIES_CONFIG_PARAM = "teamcity.internal.gradle.runner.lazyGradleProperties";
+  /**
+   * This param defaults to false. If set to true, the init script of the command line launcher queues the service messages of test tasks
+   * and writes them to the build log in blocks, instead of one Gradle log event per message.
+   * The queued messages are written at least every 100 ms and when a task finishes.
+   */
+  public static final String GRADLE_RUNNER_BATCHED_SERVICE_MESSAGES_CONFIG_PARAM = "teamcity.internal.gradle.runner.batchedServiceMessages";
+  /**
+   * This param defaults to false. If set to true, the init script of the command line launcher writes the service messages of test tasks
+   * to a binary file in the build temp directory instead of the console output, and the agent reads them from the file while Gradle is running.
+   * Not used in a virtual context.
+   */
+  public static final String GRADLE_RUNNER_TEST_EVENTS_FILE_CONFIG_PARAM = "teamcity.internal.gradle.runner.testEventsFile";
+  /**
+   * The memory the init script of the command line launcher may take for the output of the running tests of the build, in bytes.
+   * The output over the budget is moved to a file in the build temp directory until it is reported.
+   * Defaults to 16 MB
+   */
+  public static final String GRADLE_RUNNER_TEST_OUTPUT_MEMORY_BUDGET_CONFIG_PARAM = "teamcity.internal.gradle.runner.testOutputMemoryBudget";
   public static final String GRADLE_RUNNER_ALLOW_JVM_ARGS_OVERRIDING_CONFIG_PARAM = "teamcity.internal.gradle.runner.allow.jvm.args.overriding";
   /**
    * A relative path to the gradle-wrapper.properties without a filename.
@@ -68,6 +92,53 @@ public class GradleRunnerConstants {
    * Delete when issue fixed.
    */
   public static final String GRADLE_RUNNER_TOOLING_API_LAUNCHER_SHUTDOWN_TIMEOUT_SEC = "teamcity.internal.gradle.runner.toolingApiLauncher.shutdownTimeoutSec";
+  /**
+   * Delivers build events to the Tooling API launcher listeners on a separate thread through a bounded queue.
+   * Defaults to false
+   */
+  public static final String GRADLE_RUNNER_ASYNC_EVENT_DISPATCH_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.asyncEventDispatch";
+  /**
+   * Defaults to 8192
+   */
+  public static final String GRADLE_RUNNER_ASYNC_EVENT_DISPATCH_QUEUE_SIZE_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.asyncEventDispatch.queueSize";
+  /**
+   * The amount of task error output (in bytes) kept in memory by the Tooling API launcher before it is moved to a file.
+   * Defaults to 8388608 (8 MB)
+   */
+  public static final String GRADLE_RUNNER_TASK_OUTPUT_MEMORY_BUDGET_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.taskOutputMemoryBudget";
+  /**
+   * The number of the slowest executed tasks whose wall time the Tooling API launcher reports as the gradle.task.&lt;path&gt;.timeMs build statistics.
+   * Defaults to 10, 0 disables the per-task statistics
+   */
+  public static final String GRADLE_RUNNER_SLOWEST_TASKS_STATISTICS_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.slowestTasksStatistics";
+  /**
+   * Tests are reported by the Tooling API launcher from the Tooling API test events instead of the init script test listener.
+   * Unlike the init script test listener, the launcher doesn't support yet:
+   * <ul>
+   *   <li>the ignored suite format, the test names are always composed as "className.methodName"</li>
+   *   <li>the expected and actual values of comparison failures, which are reported as regular test failures</li>
+   *   <li>the test counter, so large failure details are not published as separate artifacts</li>
+   * </ul>
+   * Defaults to false
+   */
+  public static final String GRADLE_RUNNER_TOOLING_API_TEST_EVENTS_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.testEvents";
+  /**
+   * The Gradle parameters, JVM arguments and tasks are passed to the Tooling API launcher in a single binary file instead of three JSON files.
+   * Defaults to false
+   */
+  public static final String GRADLE_RUNNER_BINARY_LAUNCHER_PARAMETERS_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.binaryParameters";
+  /**
+   * The Tooling API launcher keeps the Gradle build environment (version, java home, daemon JVM arguments) in the agent cache directory
+   * and reuses it in the next builds of the same project instead of requesting it from Gradle.
+   * Defaults to false
+   */
+  public static final String GRADLE_RUNNER_BUILD_ENVIRONMENT_CACHE_CONFIG_PARAM = "teamcity.internal.gradle.runner.toolingApiLauncher.buildEnvironmentCache";
+  /**
+   * The Gradle version is taken from the wrapper distribution URL, the Gradle home libraries or the versions detected by the previous builds on the agent,
+   * and the Gradle --version process is launched only when none of them knows it.
+   * Defaults to true
+   */
+  public static final String GRADLE_RUNNER_VERSION_DETECTION_CACHE_CONFIG_PARAM = "teamcity.internal.gradle.runner.versionDetection.cache";
 
   public static final String ENV_INCREMENTAL_VALUE_SKIP = "skip_incremental";
   public static final String ENV_INCREMENTAL_VALUE_PROCEED = "do_incremental";
@@ -76,6 +147,8 @@ public class GradleRunnerConstants {
   public static final String TEAMCITY_PARALLEL_TESTS_ARTIFACT_PATH = "TEAMCITY_PARALLEL_TESTS_ARTIFACT_PATH";
   public static final String TEAMCITY_RISK_TESTS_ARTIFACT_PATH = "TEAMCITY_RISK_TESTS_ARTIFACT_PATH";
   public static final String TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR = "TEAMCITY_INIT_SCRIPT_CLASSPATH";
+  public static final String TEAMCITY_TEST_EVENTS_FILE_ENV_VAR = "TEAMCITY_TEST_EVENTS_FILE";
+  public static final String TEAMCITY_TEST_EVENTS_FILE_ENABLED_ENV_VAR = "TEAMCITY_TEST_EVENTS_FILE_ENABLED";
 
   public static final String INIT_SCRIPT_DIR = "scripts";
   public static final String INIT_SCRIPT_NAME = "init.gradle";
@@ -96,12 +169,16 @@ public class GradleRunnerConstants {
   public static final String GRADLE_PARAMS_FILE = "teamcity.gradle.config.parameters";
   public static final String GRADLE_JVM_PARAMS_FILE = "teamcity.gradle.jvm.parameters";
   public static final String GRADLE_TASKS_FILE = "teamcity.gradle.tasks";
+  public static final String GRADLE_LAUNCHER_PARAMS_FILE = "teamcity.gradle.launcher.parameters";
 
   public static final String GRADLE_PARAMS_FILE_ENV_KEY = "TEAMCITY_GRADLE_CONFIG_PARAMETERS";
   public static final String GRADLE_JVM_PARAMS_FILE_ENV_KEY = "TEAMCITY_GRADLE_JVM_PARAMETERS";
   public static final String GRADLE_TASKS_FILE_ENV_KEY = "TEAMCITY_GRADLE_TASKS";
+  public static final String GRADLE_LAUNCHER_PARAMS_FILE_ENV_KEY = "TEAMCITY_GRADLE_LAUNCHER_PARAMETERS";
   public static final String GRADLE_DAEMON_ENHANCEMENT_CLASSES_ENV_KEY = "TEAMCITY_GRADLE_DAEMON_ENHANCEMENT_CLASSES";
   public static final String TEST_TASK_JVM_ARG_PROVIDER_DISABLED_ENV_KEY = "TEST_TASK_JVM_ARG_PROVIDER_DISABLED";
+  public static final String TOOLING_API_TEST_EVENTS_ENV_KEY = "TEAMCITY_GRADLE_TOOLING_API_TEST_EVENTS";
+  public static final String BUILD_ENVIRONMENT_CACHE_DIR_ENV_KEY = "TEAMCITY_GRADLE_BUILD_ENVIRONMENT_CACHE_DIR";
   /**
    * Workaround for <a href="https://github.com/gradle/gradle/issues/34491">https://github.com/gradle/gradle/issues/34491</a>.
    * Delete when issue fixed.
@@ -2,6 +2,9 @@ package jetbrains.buildServer.gradle.agent;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Properties;
 import jetbrains.buildServer.gradle.agent.propertySplit.GradleBuildProperties;
 import org.jetbrains.annotations.NotNull;
@@ -18,6 +21,30 @@ public class GradleRunnerFileUtil {
     }
   }
 
+  /**
+   * Stores the properties only if the content of the destination file is different, so an unchanged file keeps its modification time.
+   * The file only survives between the Gradle steps of a build run by the command line launchers:
+   * the Tooling API launcher deletes it after the build and the build temp directory is cleaned between builds.
+   * So nothing is hashed when there is no previous file, and a file of a different size is rewritten without reading it.
+   * Otherwise, the contents are compared by their hashes, computed while the properties are serialized and the file is read.
+   *
+   * @return true if the file was written
+   */
+  public static boolean storePropertiesIfChanged(@NotNull File buildTempDirectory,
+                                                 @NotNull GradleBuildProperties data,
+                                                 @NotNull File destination) throws IOException {
+    if (destination.isFile()) {
+      MessageDigest dataDigest = createDigest();
+      long dataLength = serialize(data, dataDigest);
+      if (dataLength == destination.length() && MessageDigest.isEqual(dataDigest.digest(), digest(destination))) {
+        return false;
+      }
+    }
+
+    storeProperties(buildTempDirectory, data, destination);
+    return true;
+  }
+
   public static File createFileInBuildTempDirectory(@NotNull File buildTempDirectory,
                                                     @NotNull File destination) throws IOException {
     buildTempDirectory.mkdirs();
@@ -41,4 +68,47 @@ public class GradleRunnerFileUtil {
 
     return props;
   }
+
+  /**
+   * @return the length of the serialized properties
+   */
+  private static long serialize(@NotNull GradleBuildProperties data, @NotNull MessageDigest digest) throws IOException {
+    long[] length = {0};
+    try (OutputStream output = new DigestOutputStream(new OutputStream() {
+      @Override
+      public void write(int b) {
+        length[0]++;
+      }
+
+      @Override
+      public void write(@NotNull byte[] b, int off, int len) {
+        length[0] += len;
+      }
+    }, digest)) {
+      data.store(output, null);
+    }
+    return length[0];
+  }
+
+  @NotNull
+  private static byte[] digest(@NotNull File file) throws IOException {
+    MessageDigest digest = createDigest();
+    byte[] buffer = new byte[8192];
+    try (InputStream input = Files.newInputStream(file.toPath())) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return digest.digest();
+  }
+
+  @NotNull
+  private static MessageDigest createDigest() throws IOException {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
 }
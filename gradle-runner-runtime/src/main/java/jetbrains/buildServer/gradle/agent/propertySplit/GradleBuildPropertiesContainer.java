@@ -24,6 +24,7 @@ import static jetbrains.buildServer.gradle.agent.propertySplit.SplitPropertiesFi
  * 2. If the parameter is not found, the container will read parameters from the root file with dynamic parameters.
  *
  * Only the 2-nd step will cause inability to use configuration cache feature, so the goal is to avoid reading from the root file.
+ * The root file is read only once, the later misses are answered from the cache.
  * But if for some reason user needs to read some "dynamic" parameters like build.number,
  * he could set {@link GradleBuildPropertiesContainer#shouldReadAllParameters}, but configuration-cache will not be available.
  */
@@ -65,10 +66,15 @@ public class GradleBuildPropertiesContainer implements Map<Object, Object> {
     return cache.containsValue(value);
   }
 
+  /**
+   * Only the first miss reads the dynamic parameters under the lock.
+   * Once they are read, the cache contains all the parameters, so a miss means the parameter is absent and it's answered without locking.
+   */
   @Override
   public Object get(Object key) {
-    if (cache.containsKey(key)) {
-      return cache.get(key);
+    Object value = cache.get(key);
+    if (value != null || dynamicParametersRead) {
+      return value;
     }
 
     synchronized (this) {
@@ -129,11 +135,27 @@ public class GradleBuildPropertiesContainer implements Map<Object, Object> {
   }
 
   private void readDynamicParameters() {
-    Map<Object, Object> dynamicParamsMap = readParams(propsFilePath);
-    dynamicParamsMap.forEach(cache::put);
+    // the indexed sidecar is decoded without parsing the properties file format;
+    // it is read as a regular file, so Gradle still tracks it as a configuration input
+    IndexedPropertiesFile indexedParams = readIndexedParams(propsFilePath);
+    if (indexedParams != null) {
+      indexedParams.forEach(cache::put);
+    } else {
+      Map<Object, Object> dynamicParamsMap = readParams(propsFilePath);
+      dynamicParamsMap.forEach(cache::put);
+    }
     dynamicParametersRead = true;
   }
 
+  @Nullable
+  private IndexedPropertiesFile readIndexedParams(@NotNull String propertyFilePath) {
+    try {
+      return IndexedPropertiesFile.load(new File(propertyFilePath));
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   private Map<Object, Object> readParams(@NotNull String propertyFilePath) {
     try {
       return GradleRunnerFileUtil.readProperties(new File(propertyFilePath));
@@ -0,0 +1,195 @@
+package jetbrains.buildServer.gradle.agent.propertySplit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static jetbrains.buildServer.gradle.agent.propertySplit.SplitPropertiesFilenameBuilder.buildIndexFilename;
+
+/**
+ * A binary sidecar of a properties file which allows looking up single keys without parsing the whole file.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header:  magic, version, source file length, source file last modified time, entry count
+ * index:   (key offset, key length, value offset, value length) per entry, sorted by the UTF-8 bytes of the keys
+ * strings: UTF-8 bytes of the keys and values, the offsets above are relative to the start of this section
+ * </pre>
+ * The sidecar remembers the length and the modification time of the properties file it was created from.
+ * If they don't match anymore, the sidecar is ignored and the readers have to fall back to the properties file.
+ */
+public class IndexedPropertiesFile {
+
+  private static final int MAGIC = 0x54434250; // TCBP
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+  private static final int INDEX_ENTRY_SIZE = 4 * 4;
+
+  private final ByteBuffer myBuffer;
+  private final int myCount;
+  private final int myStringsStart;
+
+  private IndexedPropertiesFile(@NotNull ByteBuffer buffer, int count) {
+    myBuffer = buffer;
+    myCount = count;
+    myStringsStart = HEADER_SIZE + count * INDEX_ENTRY_SIZE;
+  }
+
+  /**
+   * Writes the sidecar of the properties file next to it
+   *
+   * @param properties the properties read from the source file
+   * @param source     the properties file
+   */
+  public static void write(@NotNull Map<?, ?> properties, @NotNull File source) throws IOException {
+    List<byte[][]> entries = new ArrayList<>(properties.size());
+    int stringsSize = 0;
+    for (Map.Entry<?, ?> entry : properties.entrySet()) {
+      byte[] key = String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+      byte[] value = String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+      entries.add(new byte[][]{key, value});
+      stringsSize += key.length + value.length;
+    }
+    entries.sort((a, b) -> compare(a[0], b[0]));
+
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + entries.size() * INDEX_ENTRY_SIZE + stringsSize);
+    buffer.putInt(MAGIC).putInt(VERSION).putLong(source.length()).putLong(source.lastModified()).putInt(entries.size());
+    int offset = 0;
+    for (byte[][] entry : entries) {
+      buffer.putInt(offset).putInt(entry[0].length);
+      offset += entry[0].length;
+      buffer.putInt(offset).putInt(entry[1].length);
+      offset += entry[1].length;
+    }
+    for (byte[][] entry : entries) {
+      buffer.put(entry[0]).put(entry[1]);
+    }
+
+    Path destination = new File(buildIndexFilename(source.getPath())).toPath();
+    Path tempFile = Files.createTempFile(destination.getParent(), destination.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tempFile, buffer.array());
+      Files.move(tempFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Memory-maps the sidecar of the properties file.
+   * The read is not tracked by Gradle as a build configuration input.
+   *
+   * @return the sidecar, or null if it doesn't exist or doesn't match the properties file
+   */
+  @Nullable
+  public static IndexedPropertiesFile map(@NotNull File source) throws IOException {
+    File sidecar = new File(buildIndexFilename(source.getPath()));
+    if (!sidecar.isFile()) return null;
+
+    try (RandomAccessFile file = new RandomAccessFile(sidecar, "r");
+         FileChannel channel = file.getChannel()) {
+      return validate(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), source);
+    }
+  }
+
+  /**
+   * Reads the whole sidecar of the properties file into memory.
+   * Unlike {@link #map(File)}, the read is tracked by Gradle as a build configuration input like a regular file read.
+   *
+   * @return the sidecar, or null if it doesn't exist or doesn't match the properties file
+   */
+  @Nullable
+  public static IndexedPropertiesFile load(@NotNull File source) throws IOException {
+    File sidecar = new File(buildIndexFilename(source.getPath()));
+    if (!sidecar.isFile()) return null;
+
+    return validate(ByteBuffer.wrap(Files.readAllBytes(sidecar.toPath())), source);
+  }
+
+  /**
+   * Looks the key up with a binary search over the index
+   */
+  @Nullable
+  public String get(@NotNull String key) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = myCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int indexEntry = HEADER_SIZE + middle * INDEX_ENTRY_SIZE;
+      int result = compare(myBuffer.getInt(indexEntry), myBuffer.getInt(indexEntry + 4), keyBytes);
+      if (result < 0) {
+        low = middle + 1;
+      } else if (result > 0) {
+        high = middle - 1;
+      } else {
+        return readString(myBuffer.getInt(indexEntry + 8), myBuffer.getInt(indexEntry + 12));
+      }
+    }
+    return null;
+  }
+
+  public int size() {
+    return myCount;
+  }
+
+  public void forEach(@NotNull BiConsumer<String, String> action) {
+    for (int i = 0; i < myCount; i++) {
+      int indexEntry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+      action.accept(readString(myBuffer.getInt(indexEntry), myBuffer.getInt(indexEntry + 4)),
+                    readString(myBuffer.getInt(indexEntry + 8), myBuffer.getInt(indexEntry + 12)));
+    }
+  }
+
+  @Nullable
+  private static IndexedPropertiesFile validate(@NotNull ByteBuffer buffer, @NotNull File source) {
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) return null;
+    if (buffer.getLong(8) != source.length() || buffer.getLong(16) != source.lastModified()) return null;
+
+    int count = buffer.getInt(24);
+    if (count < 0 || (long)HEADER_SIZE + (long)count * INDEX_ENTRY_SIZE > buffer.limit()) return null;
+    return new IndexedPropertiesFile(buffer, count);
+  }
+
+  @NotNull
+  private String readString(int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer duplicate = myBuffer.duplicate();
+    duplicate.position(myStringsStart + offset);
+    duplicate.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int compare(int offset, int length, @NotNull byte[] key) {
+    int start = myStringsStart + offset;
+    int common = Math.min(length, key.length);
+    for (int i = 0; i < common; i++) {
+      int result = Integer.compare(myBuffer.get(start + i) & 0xFF, key[i] & 0xFF);
+      if (result != 0) return result;
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  private static int compare(@NotNull byte[] a, @NotNull byte[] b) {
+    int common = Math.min(a.length, b.length);
+    for (int i = 0; i < common; i++) {
+      int result = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (result != 0) return result;
+    }
+    return Integer.compare(a.length, b.length);
+  }
+}
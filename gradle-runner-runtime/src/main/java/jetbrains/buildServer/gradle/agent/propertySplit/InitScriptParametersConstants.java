@@ -25,6 +25,7 @@ public class InitScriptParametersConstants {
   public static final String TC_BUILD_PROPERTIES_SYSTEM_ENV_KEY = GradleRunnerConstants.TC_BUILD_PROPERTIES_SYSTEM_ENV_KEY;
   public static final String GRADLE_RUNNER_READ_ALL_CONFIG_PARAM = GradleRunnerConstants.GRADLE_RUNNER_READ_ALL_CONFIG_PARAM;
   public static final String GRADLE_RUNNER_DO_NOT_POPULATE_GRADLE_PROPERTIES = GradleRunnerConstants.GRADLE_RUNNER_DO_NOT_POPULATE_GRADLE_PROPERTIES_CONFIG_PARAM;
+  public static final String GRADLE_RUNNER_LAZY_GRADLE_PROPERTIES = GradleRunnerConstants.GRADLE_RUNNER_LAZY_GRADLE_PROPERTIES_CONFIG_PARAM;
 
   public static final String GRADLE_DAEMON_ENHANCEMENT_CLASSES_ENV_KEY = GradleRunnerConstants.GRADLE_DAEMON_ENHANCEMENT_CLASSES_ENV_KEY;
 }
@@ -0,0 +1,83 @@
+package jetbrains.buildServer.gradle.agent.propertySplit;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Maps property name prefixes to values and finds the value of the longest prefix of a property name in a single pass over its characters.
+ * The trie is built once and is read-only afterwards, so it can be shared between threads.
+ *
+ * @param <V> type of the values
+ */
+public class PropertyPrefixTrie<V> {
+
+  private final Node<V> myRoot = new Node<>();
+
+  public PropertyPrefixTrie(@NotNull Map<String, V> prefixes) {
+    prefixes.forEach(this::add);
+  }
+
+  /**
+   * @param propertyName the property name
+   * @param fromIndex    the index the prefixes are matched from
+   * @return the value of the longest prefix matching the property name, or null if no prefix matches
+   */
+  @Nullable
+  public V findLongestPrefix(@NotNull String propertyName, int fromIndex) {
+    Node<V> node = myRoot;
+    V result = node.value;
+    for (int i = fromIndex; i < propertyName.length(); i++) {
+      node = node.child(propertyName.charAt(i));
+      if (node == null) break;
+      if (node.value != null) result = node.value;
+    }
+    return result;
+  }
+
+  private void add(@NotNull String prefix, @NotNull V value) {
+    Node<V> node = myRoot;
+    for (int i = 0; i < prefix.length(); i++) {
+      node = node.getOrCreateChild(prefix.charAt(i));
+    }
+    node.value = value;
+  }
+
+  private static class Node<V> {
+    private char[] myLabels = new char[0];
+    private Node<V>[] myChildren = newArray(0);
+    private V value;
+
+    @Nullable
+    Node<V> child(char label) {
+      int index = Arrays.binarySearch(myLabels, label);
+      return index >= 0 ? myChildren[index] : null;
+    }
+
+    @NotNull
+    Node<V> getOrCreateChild(char label) {
+      int index = Arrays.binarySearch(myLabels, label);
+      if (index >= 0) return myChildren[index];
+
+      int insertion = -index - 1;
+      char[] labels = new char[myLabels.length + 1];
+      Node<V>[] children = newArray(myChildren.length + 1);
+      System.arraycopy(myLabels, 0, labels, 0, insertion);
+      System.arraycopy(myChildren, 0, children, 0, insertion);
+      System.arraycopy(myLabels, insertion, labels, insertion + 1, myLabels.length - insertion);
+      System.arraycopy(myChildren, insertion, children, insertion + 1, myChildren.length - insertion);
+      Node<V> child = new Node<>();
+      labels[insertion] = label;
+      children[insertion] = child;
+      myLabels = labels;
+      myChildren = children;
+      return child;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] newArray(int size) {
+      return (Node<V>[])new Node[size];
+    }
+  }
+}
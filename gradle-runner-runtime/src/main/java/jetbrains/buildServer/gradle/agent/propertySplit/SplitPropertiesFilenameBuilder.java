@@ -3,13 +3,19 @@ package jetbrains.buildServer.gradle.agent.propertySplit;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * Builds filename for static part of the split property file.
+ * Builds filenames for static part and for indexed sidecar of the split property file.
  */
 public class SplitPropertiesFilenameBuilder {
   private static final String SPLIT_PROPERTY_STATIC_POSTFIX = ".static";
+  private static final String PROPERTY_INDEX_POSTFIX = ".idx";
 
   @NotNull
   public static String buildStaticPropertiesFilename(@NotNull String filePath) {
     return filePath + SPLIT_PROPERTY_STATIC_POSTFIX;
   }
+
+  @NotNull
+  public static String buildIndexFilename(@NotNull String filePath) {
+    return filePath + PROPERTY_INDEX_POSTFIX;
+  }
 }
@@ -15,7 +15,8 @@ public class BuildContext {
   private final String myTaskOutputDir;
 
   /**
-   * Temporary file with Gradle build parameters
+   * Temporary file with Gradle build parameters.
+   * If the launcher parameters are stored in a single binary file, the same file holds the JVM arguments and the tasks
    */
   private final String myGradleParamsTempFilePath;
 
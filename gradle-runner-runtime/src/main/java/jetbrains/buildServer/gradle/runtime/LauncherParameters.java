@@ -3,16 +3,28 @@ package jetbrains.buildServer.gradle.runtime;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
-import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Parameters passed from the agent to the Tooling API launcher.
+ * <p>
+ * Every list can be stored in its own JSON file, or several lists can be stored in a single binary file (big-endian):
+ * <pre>
+ * header:  magic, version, list count
+ * list:    value count, then (UTF-8 length, UTF-8 bytes) per value
+ * </pre>
+ * Reading the binary file doesn't load Gson into the launcher JVM. The counts and lengths in the binary file are validated against its size.
+ */
 public class LauncherParameters {
-  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+  private static final int BINARY_MAGIC = 0x54434C50; // TCLP
+  private static final int BINARY_VERSION = 1;
 
   @NotNull
   private final List<String> values;
@@ -29,14 +41,61 @@ public class LauncherParameters {
   @NotNull
   public static LauncherParameters fromFile(@NotNull Path file) throws IOException {
     try (Reader reader = Files.newBufferedReader(file)) {
-      List<String> values = GSON.fromJson(reader, new TypeToken<List<String>>() {
-      }.getType());
-      return new LauncherParameters(values);
+      return new LauncherParameters(Json.read(reader));
+    } catch (IOException e) {
+      throw new IOException("Failed to read Gradle launcher parameters from " + file, e);
+    }
+  }
+
+  /**
+   * Reads all the lists stored by {@link #writeToBinaryFile(Path, LauncherParameters...)} in the order they were written
+   */
+  @NotNull
+  public static List<LauncherParameters> fromBinaryFile(@NotNull Path file) throws IOException {
+    try {
+      // the file is small, and every count and length read from it is checked against the bytes left, so a corrupt file doesn't lead to huge allocations
+      ByteBuffer input = ByteBuffer.wrap(Files.readAllBytes(file));
+      if (readInt(input) != BINARY_MAGIC || readInt(input) != BINARY_VERSION) {
+        throw new IOException("Unsupported file format");
+      }
+
+      int listCount = readCount(input, Integer.BYTES, "list count");
+      List<LauncherParameters> result = new ArrayList<>(listCount);
+      for (int i = 0; i < listCount; i++) {
+        int valueCount = readCount(input, Integer.BYTES, "value count");
+        List<String> values = new ArrayList<>(valueCount);
+        for (int j = 0; j < valueCount; j++) {
+          int length = readCount(input, 1, "value length");
+          values.add(new String(input.array(), input.position(), length, StandardCharsets.UTF_8));
+          input.position(input.position() + length);
+        }
+        result.add(new LauncherParameters(values));
+      }
+      return result;
     } catch (IOException e) {
       throw new IOException("Failed to read Gradle launcher parameters from " + file, e);
     }
   }
 
+  private static int readInt(@NotNull ByteBuffer input) throws IOException {
+    if (input.remaining() < Integer.BYTES) {
+      throw new IOException("Unexpected end of file at byte " + input.position());
+    }
+    return input.getInt();
+  }
+
+  /**
+   * @param minItemBytes the least number of bytes every counted item takes in the rest of the file
+   */
+  private static int readCount(@NotNull ByteBuffer input, int minItemBytes, @NotNull String name) throws IOException {
+    int position = input.position();
+    int count = readInt(input);
+    if (count < 0 || (long)count * minItemBytes > input.remaining()) {
+      throw new IOException("Invalid " + name + " " + count + " at byte " + position + ", " + input.remaining() + " bytes left in the file");
+    }
+    return count;
+  }
+
   @NotNull
   public List<String> get() {
     return values;
@@ -46,10 +105,48 @@ public class LauncherParameters {
     try {
       Files.createDirectories(file.getParent());
       try (Writer writer = Files.newBufferedWriter(file)) {
-        GSON.toJson(values, writer);
+        Json.write(values, writer);
+      }
+    } catch (IOException e) {
+      throw new IOException("Failed to write Gradle launcher parameters to " + file, e);
+    }
+  }
+
+  public static void writeToBinaryFile(@NotNull Path file, @NotNull LauncherParameters... parameters) throws IOException {
+    try {
+      Files.createDirectories(file.getParent());
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+        output.writeInt(BINARY_MAGIC);
+        output.writeInt(BINARY_VERSION);
+        output.writeInt(parameters.length);
+        for (LauncherParameters list : parameters) {
+          output.writeInt(list.values.size());
+          for (String value : list.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+          }
+        }
       }
     } catch (IOException e) {
       throw new IOException("Failed to write Gradle launcher parameters to " + file, e);
     }
   }
+
+  /**
+   * Gson is loaded only when this class is initialized, i.e. when a JSON file is actually read or written
+   */
+  private static class Json {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    @NotNull
+    static List<String> read(@NotNull Reader reader) {
+      return GSON.fromJson(reader, new TypeToken<List<String>>() {
+      }.getType());
+    }
+
+    static void write(@NotNull List<String> values, @NotNull Writer writer) {
+      GSON.toJson(values, writer);
+    }
+  }
 }
@@ -0,0 +1,120 @@
+package jetbrains.buildServer.gradle.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs the independent startup phases of the Tooling API launcher concurrently and measures them.
+ * <p>
+ * The phases are blocking (file reading, class loading, Tooling API requests), so they get their own daemon threads
+ * instead of the common pool.
+ */
+public class LauncherStartupPhases implements AutoCloseable {
+
+  private final long myStartNanos = System.nanoTime();
+  private final List<String> myPhases = new ArrayList<>();
+  private final Map<String, Long> myTimings = new ConcurrentHashMap<>();
+  private final ExecutorService myExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+    private final AtomicInteger myCounter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(@NotNull Runnable runnable) {
+      Thread thread = new Thread(runnable, "TeamCity launcher startup " + myCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  @NotNull
+  public <T> CompletableFuture<T> run(@NotNull String phase, @NotNull Supplier<T> action) {
+    register(phase);
+    return CompletableFuture.supplyAsync(measured(phase, action), myExecutor);
+  }
+
+  /**
+   * Runs the phase as soon as the phase it depends on is completed
+   */
+  @NotNull
+  public <T, R> CompletableFuture<R> then(@NotNull String phase,
+                                          @NotNull CompletableFuture<T> dependency,
+                                          @NotNull Function<T, R> action) {
+    register(phase);
+    return dependency.thenApplyAsync(value -> measured(phase, () -> action.apply(value)).get(), myExecutor);
+  }
+
+  /**
+   * Runs the phase as soon as both phases it depends on are completed
+   */
+  @NotNull
+  public <T, U, R> CompletableFuture<R> then(@NotNull String phase,
+                                             @NotNull CompletableFuture<T> first,
+                                             @NotNull CompletableFuture<U> second,
+                                             @NotNull BiFunction<T, U, R> action) {
+    register(phase);
+    return first.thenCombineAsync(second, (a, b) -> measured(phase, () -> action.apply(a, b)).get(), myExecutor);
+  }
+
+  /**
+   * Waits for the phase. The exceptions thrown by the phase are rethrown as is.
+   */
+  public static <T> T await(@NotNull CompletableFuture<T> phase) {
+    try {
+      return phase.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+      if (e.getCause() instanceof Error) throw (Error)e.getCause();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the timings of the completed phases in the order they were started, e.g. "read build parameters 12 ms, connect to Gradle 40 ms"
+   */
+  @NotNull
+  public String describeTimings() {
+    StringBuilder result = new StringBuilder();
+    synchronized (myPhases) {
+      for (String phase : myPhases) {
+        Long timing = myTimings.get(phase);
+        if (timing == null) continue;
+        if (result.length() > 0) result.append(", ");
+        result.append(phase).append(' ').append(timing).append(" ms");
+      }
+    }
+    return result.toString();
+  }
+
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - myStartNanos);
+  }
+
+  @Override
+  public void close() {
+    myExecutor.shutdown();
+  }
+
+  private void register(@NotNull String phase) {
+    synchronized (myPhases) {
+      myPhases.add(phase);
+    }
+  }
+
+  @NotNull
+  private <T> Supplier<T> measured(@NotNull String phase, @NotNull Supplier<T> action) {
+    return () -> {
+      long start = System.nanoTime();
+      try {
+        return action.get();
+      } finally {
+        myTimings.put(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+    };
+  }
+}
@@ -4,19 +4,27 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import jetbrains.buildServer.gradle.GradleRunnerConstants;
 import jetbrains.buildServer.gradle.agent.GradleRunnerFileUtil;
+import jetbrains.buildServer.gradle.agent.propertySplit.IndexedPropertiesFile;
+import jetbrains.buildServer.gradle.runtime.listening.AsyncBuildEventDispatcher;
 import jetbrains.buildServer.gradle.runtime.listening.BuildEventListener;
 import jetbrains.buildServer.gradle.runtime.listening.BuildLifecycleListener;
 import jetbrains.buildServer.gradle.runtime.listening.GradleBuildLifecycleListener;
 import jetbrains.buildServer.gradle.runtime.listening.event.BuildStartedEventImpl;
 import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
 import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLoggerImpl;
+import jetbrains.buildServer.gradle.runtime.output.FileDownloadStatisticsListener;
 import jetbrains.buildServer.gradle.runtime.output.GradleBuildOutputProcessor;
+import jetbrains.buildServer.gradle.runtime.output.GradleToolingApiTestReporter;
+import jetbrains.buildServer.gradle.runtime.output.TaskExecutionStatisticsListener;
+import jetbrains.buildServer.gradle.runtime.service.BuildEnvironmentCache;
 import jetbrains.buildServer.gradle.runtime.service.GradleBuildConfigurator;
+import jetbrains.buildServer.gradle.runtime.service.GradleEnvironmentInfo;
 import jetbrains.buildServer.gradle.runtime.service.jvmargs.GradleJvmArgsMerger;
 import org.gradle.tooling.*;
 import org.gradle.tooling.model.build.BuildEnvironment;
@@ -28,35 +36,36 @@ import static jetbrains.buildServer.gradle.runtime.service.TeamCityBuildParamete
 
 public class TeamCityGradleLauncher {
   public static final CountDownLatch GRADLE_CONNECTOR_DISCONNECTED = new CountDownLatch(1); // workaround for https://github.com/gradle/gradle/issues/34491, delete when issue fixed
+  private static final String BUILD_TEMP_DIR_PARAM = "teamcity.build.tempDir";
+  private static final String BUILD_NUMBER_PARAM = "build.number";
+  private static final String IGNORE_TEST_STDOUT_PARAM = "teamcity.ignoreTestStdOut";
+  private static final String IGNORE_TEST_STDERR_PARAM = "teamcity.ignoreTestStdErr";
 
   public static void main(String[] args) {
     final Map<String, String> gradleEnv = new HashMap<>(System.getenv());
 
-    String gradleParamsFilePath = getSystemEnvValue(gradleEnv, GradleRunnerConstants.GRADLE_PARAMS_FILE_ENV_KEY);
-    if (gradleParamsFilePath == null) {
-      return;
-    }
-    final List<String> gradleParams = readParams(gradleParamsFilePath);
-    if (gradleParams == null) {
-      return;
-    }
-
-    String jvmArgsFilePath = getSystemEnvValue(gradleEnv, GradleRunnerConstants.GRADLE_JVM_PARAMS_FILE_ENV_KEY);
-    if (jvmArgsFilePath == null) {
-      return;
-    }
-    final List<String> tcJvmArgs = readParams(jvmArgsFilePath);
-    if (tcJvmArgs == null) {
-      return;
-    }
-
-    String gradleTasksPath = getSystemEnvValue(gradleEnv, GradleRunnerConstants.GRADLE_TASKS_FILE_ENV_KEY);
-    if (gradleTasksPath == null) {
-      return;
-    }
-    final List<String> gradleTasks = readParams(gradleTasksPath);
-    if (gradleTasks == null) {
-      return;
+    // The parameters are stored either in a single binary file or in three JSON files
+    final String launcherParamsFilePath = gradleEnv.get(GradleRunnerConstants.GRADLE_LAUNCHER_PARAMS_FILE_ENV_KEY);
+    final String gradleParamsFilePath;
+    final String jvmArgsFilePath;
+    final String gradleTasksPath;
+    if (launcherParamsFilePath != null) {
+      gradleParamsFilePath = launcherParamsFilePath;
+      jvmArgsFilePath = launcherParamsFilePath;
+      gradleTasksPath = launcherParamsFilePath;
+    } else {
+      gradleParamsFilePath = getSystemEnvValue(gradleEnv, GradleRunnerConstants.GRADLE_PARAMS_FILE_ENV_KEY);
+      if (gradleParamsFilePath == null) {
+        return;
+      }
+      jvmArgsFilePath = getSystemEnvValue(gradleEnv, GradleRunnerConstants.GRADLE_JVM_PARAMS_FILE_ENV_KEY);
+      if (jvmArgsFilePath == null) {
+        return;
+      }
+      gradleTasksPath = getSystemEnvValue(gradleEnv, GradleRunnerConstants.GRADLE_TASKS_FILE_ENV_KEY);
+      if (gradleTasksPath == null) {
+        return;
+      }
     }
 
     final String workingDir = gradleEnv.get(GradleRunnerConstants.WORKING_DIRECTORY_ENV_KEY);
@@ -66,53 +75,106 @@ public class TeamCityGradleLauncher {
       return;
     }
 
-    File tcBuildParametersFile = getTcBuildParametersFile(gradleEnv);
-    Properties teamCityBuildParameters = getTeamCityBuildParameters(tcBuildParametersFile);
-    if (teamCityBuildParameters == null) {
+    // checked before the connection to Gradle is started, so a broken step doesn't spin up a Gradle daemon
+    if (!isFile(gradleParamsFilePath) || !isFile(jvmArgsFilePath) || !isFile(gradleTasksPath)) {
       return;
     }
-    String buildTempDir = teamCityBuildParameters.getProperty("teamcity.build.tempDir", "");
-    if (buildTempDir.isEmpty()) {
-      System.err.println("Parameter teamcity.build.tempDir must be set in teamcity.build.parameters.");
-      return;
-    }
-    String buildNumber = teamCityBuildParameters.getProperty("build.number", "");
+
+    File tcBuildParametersFile = getTcBuildParametersFile(gradleEnv);
 
     final Boolean useWrapper = Boolean.valueOf(gradleEnv.get(GradleRunnerConstants.USE_WRAPPER_ENV_KEY));
     final String gradleHome = gradleEnv.get(GradleRunnerConstants.GRADLE_HOME_ENV_KEY);
     final String gradleWrapperProperties = gradleEnv.get(GradleRunnerConstants.GRADLE_WRAPPED_DISTRIBUTION_ENV_KEY);
 
-    boolean isDebugModeEnabled = gradleParams.stream().anyMatch(task -> task.equals("-d"));
-    GradleToolingLogger logger = new GradleToolingLoggerImpl(isDebugModeEnabled);
-    GradleJvmArgsMerger jvmArgsMerger = new GradleJvmArgsMerger(logger);
-    String taskOutputDir = buildTempDir + File.separator + BUILD_TEMP_DIR_TASK_OUTPUT_SUBDIR;
-    BuildContext buildContext = new BuildContext(tcBuildParametersFile.getAbsolutePath(), taskOutputDir, gradleParamsFilePath, jvmArgsFilePath, gradleTasksPath);
-    List<BuildEventListener> eventListeners = new ArrayList<>();
-    eventListeners.add(new GradleBuildOutputProcessor(logger, buildContext));
-    BuildLifecycleListener buildLifecycleListener = new GradleBuildLifecycleListener(logger, eventListeners, buildContext);
-    GradleBuildConfigurator buildConfigurator = new GradleBuildConfigurator(logger);
-
-    try {
-      gradleEnv.put(TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR, GradleBuildConfigurator.getInitScriptClasspath());
-    } catch (IOException e) {
-      // use existing TEAMCITY_INIT_SCRIPT_CLASSPATH from GradleToolingApiCommandLineComposer.composeCommandLine
-      if (gradleEnv.get(TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR) == null) {
-        System.err.println("Couldn't launch Gradle via Tooling API: error while trying to build init script classpath");
-        return;
-      }
+    // Only the connection to Gradle and the BuildEnvironment request are expensive,
+    // so they are started as soon as the Gradle parameters are read and overlapped with reading the other files.
+    // The connection is not started if the Gradle parameters couldn't be read.
+    LauncherStartupPhases startup = new LauncherStartupPhases();
+    final CompletableFuture<List<String>> gradleParamsPhase;
+    final CompletableFuture<List<String>> tcJvmArgsPhase;
+    final CompletableFuture<List<String>> gradleTasksPhase;
+    if (launcherParamsFilePath != null) {
+      CompletableFuture<List<LauncherParameters>> launcherParamsPhase = startup.run("read launcher parameters", () -> readBinaryParams(launcherParamsFilePath));
+      gradleParamsPhase = launcherParamsPhase.thenApply(params -> params == null ? null : params.get(0).get());
+      tcJvmArgsPhase = launcherParamsPhase.thenApply(params -> params == null ? null : params.get(1).get());
+      gradleTasksPhase = launcherParamsPhase.thenApply(params -> params == null ? null : params.get(2).get());
+    } else {
+      gradleParamsPhase = startup.run("read Gradle parameters", () -> readParams(gradleParamsFilePath));
+      tcJvmArgsPhase = startup.run("read JVM arguments", () -> readParams(jvmArgsFilePath));
+      gradleTasksPhase = startup.run("read Gradle tasks", () -> readParams(gradleTasksPath));
     }
+    CompletableFuture<Map<String, String>> buildParametersPhase = startup.run(
+      "read build parameters",
+      () -> getTeamCityBuildParameters(tcBuildParametersFile, BUILD_TEMP_DIR_PARAM, BUILD_NUMBER_PARAM, IGNORE_TEST_STDOUT_PARAM, IGNORE_TEST_STDERR_PARAM));
+    CompletableFuture<String> initScriptClasspathPhase = startup.run("compute init script classpath", TeamCityGradleLauncher::getInitScriptClasspath);
+    CompletableFuture<GradleToolingLogger> loggerPhase = gradleParamsPhase.thenApply(
+      params -> params == null ? null : new GradleToolingLoggerImpl(params.stream().anyMatch(task -> task.equals("-d"))));
+    CompletableFuture<GradleBuildConfigurator> buildConfiguratorPhase = loggerPhase.thenApply(logger -> logger == null ? null : new GradleBuildConfigurator(logger));
+    CompletableFuture<GradleConnector> connectorPhase = startup.then(
+      "prepare Gradle connector", buildConfiguratorPhase,
+      configurator -> configurator == null ? null : configurator.prepareConnector(workingDir, useWrapper, gradleWrapperProperties, gradleHome));
+    CompletableFuture<ProjectConnection> connectionPhase = connectorPhase.thenApply(connector -> connector == null ? null : connector.connect());
+    CompletableFuture<Optional<GradleEnvironmentInfo>> buildEnvironmentPhase = startup.then(
+      "fetch build environment", connectionPhase, loggerPhase,
+      (connection, logger) -> connection == null ? Optional.<GradleEnvironmentInfo>empty()
+                                                 : getBuildEnvironment(connection, System.getenv(), workingDir, useWrapper, gradleWrapperProperties, gradleHome,
+                                                                       gradleParamsPhase.join(), logger));
 
     final GradleConnector connector;
     try {
-      connector = buildConfigurator.prepareConnector(workingDir, useWrapper, gradleWrapperProperties, gradleHome);
+      connector = LauncherStartupPhases.await(connectorPhase);
     } catch (Exception e) {
       System.err.println(e.getMessage());
+      startup.close();
+      return;
+    }
+    if (connector == null) {
+      // the Gradle parameters couldn't be read, the error is already reported
+      startup.close();
       return;
     }
 
-    try (ProjectConnection connection = connector.connect()) {
-      Optional<BuildEnvironment> buildEnvironment = getBuildEnvironment(connection, logger);
-      List<String> gradleProjectJvmArgs = buildEnvironment.map(env -> env.getJava().getJvmArguments()).orElseGet(Collections::emptyList);
+    try (ProjectConnection connection = LauncherStartupPhases.await(connectionPhase)) {
+      final List<String> gradleParams = LauncherStartupPhases.await(gradleParamsPhase);
+      final List<String> tcJvmArgs = LauncherStartupPhases.await(tcJvmArgsPhase);
+      final List<String> gradleTasks = LauncherStartupPhases.await(gradleTasksPhase);
+      if (gradleParams == null || tcJvmArgs == null || gradleTasks == null) {
+        return;
+      }
+
+      Map<String, String> teamCityBuildParameters = LauncherStartupPhases.await(buildParametersPhase);
+      if (teamCityBuildParameters == null) {
+        return;
+      }
+      String buildTempDir = teamCityBuildParameters.getOrDefault(BUILD_TEMP_DIR_PARAM, "");
+      if (buildTempDir.isEmpty()) {
+        System.err.println("Parameter teamcity.build.tempDir must be set in teamcity.build.parameters.");
+        return;
+      }
+      String buildNumber = teamCityBuildParameters.getOrDefault(BUILD_NUMBER_PARAM, "");
+
+      String initScriptClasspath = LauncherStartupPhases.await(initScriptClasspathPhase);
+      if (initScriptClasspath != null) {
+        gradleEnv.put(TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR, initScriptClasspath);
+      } else if (gradleEnv.get(TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR) == null) {
+        // use existing TEAMCITY_INIT_SCRIPT_CLASSPATH from GradleToolingApiCommandLineComposer.composeCommandLine
+        System.err.println("Couldn't launch Gradle via Tooling API: error while trying to build init script classpath");
+        return;
+      }
+
+      GradleToolingLogger logger = LauncherStartupPhases.await(loggerPhase);
+      GradleBuildConfigurator buildConfigurator = LauncherStartupPhases.await(buildConfiguratorPhase);
+      GradleJvmArgsMerger jvmArgsMerger = new GradleJvmArgsMerger(logger);
+      String taskOutputDir = buildTempDir + File.separator + BUILD_TEMP_DIR_TASK_OUTPUT_SUBDIR;
+      BuildContext buildContext = new BuildContext(tcBuildParametersFile.getAbsolutePath(), taskOutputDir, gradleParamsFilePath, jvmArgsFilePath, gradleTasksPath);
+      List<BuildEventListener> eventListeners = new ArrayList<>();
+      eventListeners.add(new GradleBuildOutputProcessor(logger, buildContext));
+      eventListeners.add(new FileDownloadStatisticsListener(logger));
+      eventListeners.add(new TaskExecutionStatisticsListener(logger));
+      BuildLifecycleListener buildLifecycleListener = new GradleBuildLifecycleListener(logger, wrapEventListeners(eventListeners, logger), buildContext);
+
+      Optional<GradleEnvironmentInfo> buildEnvironment = LauncherStartupPhases.await(buildEnvironmentPhase);
+      List<String> gradleProjectJvmArgs = buildEnvironment.map(GradleEnvironmentInfo::getJvmArguments).orElseGet(Collections::emptyList);
       boolean allowJvmArgsOverriding = Boolean.parseBoolean(System.getProperty(GRADLE_RUNNER_ALLOW_JVM_ARGS_OVERRIDING_CONFIG_PARAM));
 
       Collection<String> jvmArgsForOverriding = !allowJvmArgsOverriding || tcJvmArgs.isEmpty()
@@ -121,9 +183,18 @@ public class TeamCityGradleLauncher {
 
       Collection<String> tasksAndParams = Stream.concat(gradleTasks.stream(), gradleParams.stream()).collect(Collectors.toList());
 
-      BuildLauncher launcher = buildConfigurator.prepareBuildExecutor(gradleEnv, tasksAndParams, jvmArgsForOverriding, buildLifecycleListener, buildNumber, connection);
+      GradleToolingApiTestReporter testReporter = null;
+      if (Boolean.parseBoolean(System.getProperty(GRADLE_RUNNER_TOOLING_API_TEST_EVENTS_CONFIG_PARAM))) {
+        // the init script doesn't report the tests itself then
+        gradleEnv.put(TOOLING_API_TEST_EVENTS_ENV_KEY, Boolean.TRUE.toString());
+        testReporter = new GradleToolingApiTestReporter(logger,
+                                                        Boolean.parseBoolean(teamCityBuildParameters.get(IGNORE_TEST_STDOUT_PARAM)),
+                                                        Boolean.parseBoolean(teamCityBuildParameters.get(IGNORE_TEST_STDERR_PARAM)));
+      }
+
+      BuildLauncher launcher = buildConfigurator.prepareBuildExecutor(gradleEnv, tasksAndParams, jvmArgsForOverriding, buildLifecycleListener, buildNumber, testReporter, connection);
 
-      String buildStartedMessage = composeBuildStartedMessage(buildNumber, tasksAndParams, jvmArgsForOverriding, buildEnvironment.orElse(null), gradleEnv);
+      String buildStartedMessage = composeBuildStartedMessage(buildNumber, tasksAndParams, jvmArgsForOverriding, buildEnvironment.orElse(null), gradleEnv, startup);
       buildLifecycleListener.onStart(new BuildStartedEventImpl(System.currentTimeMillis(), buildStartedMessage));
 
       // workaround for https://github.com/gradle/gradle/issues/34491, delete when issue fixed
@@ -156,6 +227,7 @@ public class TeamCityGradleLauncher {
         @Override
         public void onComplete(Void unused) {
           try {
+            buildConfigurator.closeBuildOutput();
             buildLifecycleListener.onSuccess();
           } finally {
             connector.disconnect();
@@ -166,6 +238,7 @@ public class TeamCityGradleLauncher {
         @Override
         public void onFailure(GradleConnectionException e) {
           try {
+            buildConfigurator.closeBuildOutput();
             buildLifecycleListener.onFail();
           } finally {
             connector.disconnect();
@@ -174,19 +247,64 @@ public class TeamCityGradleLauncher {
           throw e;
         }
       });
+    } finally {
+      startup.close();
     }
   }
 
+  @NotNull
+  private static Collection<BuildEventListener> wrapEventListeners(@NotNull List<BuildEventListener> eventListeners,
+                                                                   @NotNull GradleToolingLogger logger) {
+    if (!Boolean.parseBoolean(System.getProperty(GRADLE_RUNNER_ASYNC_EVENT_DISPATCH_CONFIG_PARAM))) {
+      return eventListeners;
+    }
+
+    int queueSize = Integer.getInteger(GRADLE_RUNNER_ASYNC_EVENT_DISPATCH_QUEUE_SIZE_CONFIG_PARAM, AsyncBuildEventDispatcher.DEFAULT_QUEUE_SIZE);
+    return Collections.singletonList(new AsyncBuildEventDispatcher(logger, eventListeners, queueSize));
+  }
+
   @Nullable
-  private static Properties getTeamCityBuildParameters(@NotNull File tcBuildParameters) {
+  private static String getInitScriptClasspath() {
     try {
-      return GradleRunnerFileUtil.readProperties(tcBuildParameters);
+      return GradleBuildConfigurator.getInitScriptClasspath();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Looks the parameters up in the indexed sidecar of teamcity.build.parameters, so the whole file is parsed only if there is no sidecar
+   */
+  @Nullable
+  private static Map<String, String> getTeamCityBuildParameters(@NotNull File tcBuildParameters, @NotNull String... keys) {
+    try {
+      Map<String, String> result = new HashMap<>();
+      IndexedPropertiesFile indexedParameters = IndexedPropertiesFile.map(tcBuildParameters);
+      if (indexedParameters != null) {
+        for (String key : keys) {
+          Optional.ofNullable(indexedParameters.get(key)).ifPresent(value -> result.put(key, value));
+        }
+      } else {
+        Properties properties = GradleRunnerFileUtil.readProperties(tcBuildParameters);
+        for (String key : keys) {
+          Optional.ofNullable(properties.getProperty(key)).ifPresent(value -> result.put(key, value));
+        }
+      }
+      return result;
     } catch (IOException e) {
       System.err.println("Couldn't read properties from: " + tcBuildParameters.getAbsolutePath());
       return null;
     }
   }
 
+  private static boolean isFile(@NotNull String filePath) {
+    if (!new File(filePath).isFile()) {
+      System.err.println("Gradle launcher parameters file doesn't exist: " + filePath);
+      return false;
+    }
+    return true;
+  }
+
   @Nullable
   private static String getSystemEnvValue(@NotNull Map<String, String> systemEnv,
                                           @NotNull String systemEnvKey) {
@@ -208,11 +326,61 @@ public class TeamCityGradleLauncher {
     }
   }
 
+  /**
+   * @return the Gradle parameters, JVM arguments and tasks, in this order
+   */
+  @Nullable
+  private static List<LauncherParameters> readBinaryParams(@NotNull String filePath) {
+    try {
+      List<LauncherParameters> params = LauncherParameters.fromBinaryFile(Paths.get(filePath));
+      if (params.size() < 3) {
+        System.err.println("Gradle launcher parameters file " + filePath + " must contain Gradle parameters, JVM arguments and tasks");
+        return null;
+      }
+      return params;
+    } catch (IOException e) {
+      System.err.println(e.getMessage());
+      return null;
+    }
+  }
+
+  @NotNull
+  private static Optional<GradleEnvironmentInfo> getBuildEnvironment(@NotNull ProjectConnection connection,
+                                                                     @NotNull Map<String, String> gradleEnv,
+                                                                     @NotNull String workingDir,
+                                                                     boolean useWrapper,
+                                                                     @Nullable String gradleWrapperProperties,
+                                                                     @Nullable String gradleHome,
+                                                                     @NotNull List<String> gradleParams,
+                                                                     @NotNull GradleToolingLogger logger) {
+    String cacheDir = gradleEnv.get(BUILD_ENVIRONMENT_CACHE_DIR_ENV_KEY);
+    if (cacheDir == null) {
+      return getBuildEnvironment(connection, logger);
+    }
+
+    BuildEnvironmentCache cache = new BuildEnvironmentCache(Paths.get(cacheDir), logger);
+    String key = cache.computeKey(workingDir, useWrapper, gradleWrapperProperties, gradleHome, gradleParams,
+                                  gradleEnv.get("JAVA_HOME"), gradleEnv.get("GRADLE_USER_HOME"));
+    if (key == null) {
+      return getBuildEnvironment(connection, logger);
+    }
+
+    Optional<GradleEnvironmentInfo> cached = cache.get(key);
+    if (cached.isPresent()) {
+      logger.debug("Using the cached Gradle build environment " + key);
+      return cached;
+    }
+
+    Optional<GradleEnvironmentInfo> buildEnvironment = getBuildEnvironment(connection, logger);
+    buildEnvironment.ifPresent(it -> cache.put(key, it));
+    return buildEnvironment;
+  }
+
   @NotNull
-  private static Optional<BuildEnvironment> getBuildEnvironment(@NotNull ProjectConnection connection,
-                                                                @NotNull GradleToolingLogger logger) {
+  private static Optional<GradleEnvironmentInfo> getBuildEnvironment(@NotNull ProjectConnection connection,
+                                                                     @NotNull GradleToolingLogger logger) {
     try {
-      return Optional.of(connection.getModel(BuildEnvironment.class));
+      return Optional.of(GradleEnvironmentInfo.fromBuildEnvironment(connection.getModel(BuildEnvironment.class)));
     } catch (Throwable t) {
       logger.debug("Failed to obtain build environment from Gradle: " + t);
     }
@@ -222,19 +390,20 @@ public class TeamCityGradleLauncher {
   private static String composeBuildStartedMessage(@NotNull String buildNumber,
                                                    @NotNull Collection<String> tasksAndParams,
                                                    @NotNull Collection<String> overridedJvmArgs,
-                                                   @Nullable BuildEnvironment buildEnvironment,
-                                                   @NotNull Map<String, String> gradleEnv) {
+                                                   @Nullable GradleEnvironmentInfo buildEnvironment,
+                                                   @NotNull Map<String, String> gradleEnv,
+                                                   @NotNull LauncherStartupPhases startup) {
     StringBuilder messageBuilder = new StringBuilder()
       .append("Starting Gradle in TeamCity build ").append(buildNumber).append(System.lineSeparator())
       .append("Gradle tasks and arguments: ").append(String.join(" ", tasksAndParams));
 
     if (buildEnvironment != null) {
       try {
-        String version = buildEnvironment.getGradle().getGradleVersion();
-        String javaHome = buildEnvironment.getJava().getJavaHome().getAbsolutePath();
+        String version = buildEnvironment.getGradleVersion();
+        String javaHome = buildEnvironment.getJavaHome();
         String jvmArgsStr = !overridedJvmArgs.isEmpty()
           ? String.join(" ", overridedJvmArgs)
-          : String.join(" ", buildEnvironment.getJava().getJvmArguments());
+          : String.join(" ", buildEnvironment.getJvmArguments());
 
         messageBuilder
           .append(System.lineSeparator())
@@ -247,7 +416,8 @@ public class TeamCityGradleLauncher {
 
 
     messageBuilder.append("Gradle environment variables size: ").append(gradleEnv.size()).append(System.lineSeparator());
-    messageBuilder.append("Gradle init script classpath: ").append(gradleEnv.get(TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR));
+    messageBuilder.append("Gradle init script classpath: ").append(gradleEnv.get(TEAMCITY_INIT_SCRIPT_CLASSPATH_ENV_VAR)).append(System.lineSeparator());
+    messageBuilder.append("Launcher startup: ").append(startup.getElapsedMillis()).append(" ms (").append(startup.describeTimings()).append(")");
 
     return messageBuilder.toString();
   }
@@ -0,0 +1,209 @@
+package jetbrains.buildServer.gradle.runtime.listening;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildFinishedEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.TaskOutputEvent;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Delivers build events to the listeners on a single dispatcher thread,
+ * so the Tooling API callback thread and the threads writing the build output are not blocked by slow listeners.
+ * <p>
+ * Events are kept in a bounded lock-free ring buffer and delivered in the order they were published.
+ * When the buffer is full, task output events are dropped (they are still printed to the build log, only the postprocessing misses them),
+ * all other events wait for free space.
+ * A {@link BuildFinishedEvent} drains the buffer: the publishing thread waits until every event published before it has been delivered.
+ */
+public class AsyncBuildEventDispatcher implements BuildEventListener {
+
+  public static final int DEFAULT_QUEUE_SIZE = 8192;
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long FULL_QUEUE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final long DRAIN_TIMEOUT_SEC = 60;
+
+  private final GradleToolingLogger myLogger;
+  private final Collection<BuildEventListener> myEventListeners;
+
+  private final AtomicReferenceArray<BuildEvent> myBuffer;
+  private final AtomicLongArray mySequences;
+  private final int myMask;
+  private final AtomicLong myTail = new AtomicLong();
+  private final AtomicLong myHead = new AtomicLong();
+
+  private final AtomicLong myDroppedEvents = new AtomicLong();
+  private final AtomicLong myMaxQueueDepth = new AtomicLong();
+  private final CountDownLatch myDrained = new CountDownLatch(1);
+  private final Thread myConsumer;
+  private volatile boolean myConsumerIdle = false;
+  private volatile boolean myStopped = false;
+
+  public AsyncBuildEventDispatcher(@NotNull GradleToolingLogger logger,
+                                   @NotNull Collection<BuildEventListener> eventListeners,
+                                   int queueSize) {
+    myLogger = logger;
+    myEventListeners = eventListeners;
+
+    int capacity = Integer.highestOneBit(Math.max(queueSize, 2) - 1) << 1;
+    myBuffer = new AtomicReferenceArray<>(capacity);
+    mySequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      mySequences.set(i, i);
+    }
+    myMask = capacity - 1;
+
+    myConsumer = new Thread(this::dispatchLoop, "TeamCity build event dispatcher");
+    myConsumer.setDaemon(true);
+    myConsumer.start();
+  }
+
+  @Override
+  public void onEvent(@NotNull BuildEvent event) {
+    if (myStopped) {
+      dispatch(event);
+      return;
+    }
+
+    if (event instanceof TaskOutputEvent) {
+      if (!offer(event)) {
+        myDroppedEvents.incrementAndGet();
+      }
+      return;
+    }
+
+    while (!offer(event)) {
+      LockSupport.parkNanos(this, FULL_QUEUE_PARK_NANOS);
+    }
+
+    if (event instanceof BuildFinishedEvent) {
+      awaitDrained();
+    }
+  }
+
+  /**
+   * @return the number of events published but not yet delivered to the listeners
+   */
+  public long getQueueDepth() {
+    return Math.max(0, myTail.get() - myHead.get());
+  }
+
+  /**
+   * @return the highest number of undelivered events observed so far
+   */
+  public long getMaxQueueDepth() {
+    return myMaxQueueDepth.get();
+  }
+
+  /**
+   * @return the number of task output events dropped because the queue was full
+   */
+  public long getDroppedEventsCount() {
+    return myDroppedEvents.get();
+  }
+
+  private boolean offer(@NotNull BuildEvent event) {
+    long position = myTail.get();
+    while (true) {
+      int index = (int)(position & myMask);
+      long difference = mySequences.get(index) - position;
+      if (difference == 0) {
+        if (myTail.compareAndSet(position, position + 1)) {
+          myBuffer.set(index, event);
+          mySequences.set(index, position + 1);
+          updateMaxQueueDepth(position + 1 - myHead.get());
+          if (myConsumerIdle) {
+            LockSupport.unpark(myConsumer);
+          }
+          return true;
+        }
+        position = myTail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = myTail.get();
+      }
+    }
+  }
+
+  @Nullable
+  private BuildEvent poll() {
+    long position = myHead.get();
+    int index = (int)(position & myMask);
+    if (mySequences.get(index) != position + 1) {
+      return null;
+    }
+    BuildEvent event = myBuffer.get(index);
+    myBuffer.set(index, null);
+    mySequences.set(index, position + myMask + 1);
+    myHead.lazySet(position + 1);
+    return event;
+  }
+
+  private void dispatchLoop() {
+    while (true) {
+      BuildEvent event = poll();
+      if (event == null) {
+        myConsumerIdle = true;
+        event = poll();
+        if (event == null) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+          myConsumerIdle = false;
+          continue;
+        }
+        myConsumerIdle = false;
+      }
+
+      dispatch(event);
+
+      if (event instanceof BuildFinishedEvent) {
+        myStopped = true;
+        myDrained.countDown();
+        return;
+      }
+    }
+  }
+
+  private void dispatch(@NotNull BuildEvent event) {
+    for (BuildEventListener listener : myEventListeners) {
+      try {
+        listener.onEvent(event);
+      } catch (Throwable t) {
+        myLogger.warn(String.format("Build event listener failed: listener=%s, message=%s", listener.getClass().getSimpleName(), t.getMessage()));
+      }
+    }
+  }
+
+  private void awaitDrained() {
+    try {
+      if (!myDrained.await(DRAIN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+        myLogger.warn(String.format("Build events were not delivered in %d seconds: queueDepth=%d", DRAIN_TIMEOUT_SEC, getQueueDepth()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    long dropped = getDroppedEventsCount();
+    if (dropped > 0) {
+      myLogger.warn(String.format("Build output postprocessing was stalling the build, some output lines were not processed: dropped=%d, queueSize=%d",
+                                  dropped, myMask + 1));
+    }
+    myLogger.debug(String.format("Build event dispatcher finished: published=%d, dropped=%d, maxQueueDepth=%d",
+                                 myTail.get(), dropped, getMaxQueueDepth()));
+  }
+
+  private void updateMaxQueueDepth(long depth) {
+    long max = myMaxQueueDepth.get();
+    while (depth > max && !myMaxQueueDepth.compareAndSet(max, depth)) {
+      max = myMaxQueueDepth.get();
+    }
+  }
+}
@@ -2,11 +2,10 @@ package jetbrains.buildServer.gradle.runtime.listening;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.stream.Stream;
 import jetbrains.buildServer.gradle.runtime.BuildContext;
 import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
@@ -14,8 +13,10 @@ import jetbrains.buildServer.gradle.runtime.listening.event.BuildFinishedEventIm
 import jetbrains.buildServer.gradle.runtime.listening.event.BuildResult;
 import jetbrains.buildServer.gradle.runtime.listening.event.TaskOutputEvent;
 import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.service.BackgroundDirectoryDeleter;
 import org.jetbrains.annotations.NotNull;
 
+import static jetbrains.buildServer.gradle.agent.propertySplit.SplitPropertiesFilenameBuilder.buildIndexFilename;
 import static jetbrains.buildServer.gradle.agent.propertySplit.SplitPropertiesFilenameBuilder.buildStaticPropertiesFilename;
 
 public class GradleBuildLifecycleListener implements BuildLifecycleListener {
@@ -23,6 +24,7 @@ public class GradleBuildLifecycleListener implements BuildLifecycleListener {
   private final GradleToolingLogger myLogger;
   private final Collection<BuildEventListener> myEventListeners;
   private final BuildContext myBuildContext;
+  private final BackgroundDirectoryDeleter myDirectoryDeleter;
 
   public GradleBuildLifecycleListener(GradleToolingLogger logger,
                                       Collection<BuildEventListener> eventListeners,
@@ -30,6 +32,7 @@ public class GradleBuildLifecycleListener implements BuildLifecycleListener {
     myLogger = logger;
     myEventListeners = eventListeners;
     myBuildContext = buildContext;
+    myDirectoryDeleter = new BackgroundDirectoryDeleter(logger);
   }
 
   @Override
@@ -61,49 +64,43 @@ public class GradleBuildLifecycleListener implements BuildLifecycleListener {
   }
 
   private void createTaskOutputDir() {
-    File taskOutputDir = new File(myBuildContext.getTaskOutputDir());
-    if (taskOutputDir.exists()) {
+    Path taskOutputDir = Paths.get(myBuildContext.getTaskOutputDir());
+    myDirectoryDeleter.deleteLeftoversInBackground(taskOutputDir);
+    if (Files.exists(taskOutputDir)) {
       try {
-        delete(taskOutputDir);
+        myDirectoryDeleter.deleteInBackground(myDirectoryDeleter.moveAside(taskOutputDir));
       } catch (IOException e) {
-        String msg = String.format("Unable to start build. Couldn't delete task output directory: path=%s", myBuildContext.getTaskOutputDir());
-        myLogger.warn(msg);
-        throw new RuntimeException(msg, e);
+        myLogger.debug(String.format("Couldn't move task output directory aside, deleting it in place: path=%s, message=%s", taskOutputDir, e.getMessage()));
+        deleteTaskOutputDirInPlace(taskOutputDir);
       }
     }
 
-    if (!taskOutputDir.mkdirs()) {
+    if (!taskOutputDir.toFile().mkdirs()) {
       String msg = String.format("Couldn't create task output directory: path=%s", myBuildContext.getTaskOutputDir());
       myLogger.warn(msg);
       throw new RuntimeException(msg);
     }
   }
 
-  private void delete(@NotNull File file) throws IOException {
-    Path path = file.toPath();
-    if (!Files.exists(path)) return;
-
-    try (Stream<Path> walk = Files.walk(path)) {
-      walk.sorted(Comparator.reverseOrder())
-          .forEach(p -> {
-            try {
-              Files.delete(p);
-            } catch (IOException e) {
-              throw new UncheckedIOException(e);
-            }
-          });
-    } catch (UncheckedIOException e) {
-      throw e.getCause();
+  private void deleteTaskOutputDirInPlace(@NotNull Path taskOutputDir) {
+    try {
+      myDirectoryDeleter.delete(taskOutputDir);
+    } catch (IOException e) {
+      String msg = String.format("Unable to start build. Couldn't delete task output directory: path=%s", myBuildContext.getTaskOutputDir());
+      myLogger.warn(msg);
+      throw new RuntimeException(msg, e);
     }
   }
 
   private void deleteTemporaryFiles() {
     String staticFilePath = buildStaticPropertiesFilename(myBuildContext.getTcBuildParametersPath());
+    String indexFilePath = buildIndexFilename(myBuildContext.getTcBuildParametersPath());
 
     Stream.of(staticFilePath,
+              indexFilePath,
               myBuildContext.getGradleParamsTempFilePath(),
               myBuildContext.getJvmArgsTempFilePath(),
-              myBuildContext.getGradleTasksTempFilePath()).forEach(filePath -> {
+              myBuildContext.getGradleTasksTempFilePath()).distinct().forEach(filePath -> {
       File source = new File(filePath);
       if (!source.exists()) {
         myLogger.warn("Couldn't delete file. The file doesn't exist: " + filePath);
@@ -118,13 +115,10 @@ public class GradleBuildLifecycleListener implements BuildLifecycleListener {
     deleteTaskOutputDir();
   }
 
+  /**
+   * The deletion finishes in background, while the launcher is shutting down
+   */
   private void deleteTaskOutputDir() {
-    File taskOutputDir = new File(myBuildContext.getTaskOutputDir());
-    try {
-      delete(taskOutputDir);
-    }
-    catch (IOException e) {
-      myLogger.warn(String.format("Couldn't delete task output directory: path=%s, message: " + e.getMessage(), myBuildContext.getTaskOutputDir()));
-    }
+    myDirectoryDeleter.deleteInBackground(Paths.get(myBuildContext.getTaskOutputDir()));
   }
 }
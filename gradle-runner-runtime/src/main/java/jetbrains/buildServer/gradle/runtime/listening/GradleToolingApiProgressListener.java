@@ -2,9 +2,13 @@ package jetbrains.buildServer.gradle.runtime.listening;
 
 import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
 import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.gradle.runtime.output.GradleToolingApiTestReporter;
+import jetbrains.buildServer.gradle.runtime.service.GradleEventIdFactory;
 import jetbrains.buildServer.gradle.runtime.service.GradleProgressEventConverter;
 import org.gradle.tooling.events.ProgressEvent;
 import org.gradle.tooling.events.ProgressListener;
+import org.gradle.tooling.events.download.FileDownloadStartEvent;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Listens to events from the Gradle Tooling API
@@ -13,19 +17,34 @@ public class GradleToolingApiProgressListener implements ProgressListener {
 
     private final BuildLifecycleListener myListener;
     private final GradleToolingLogger myLogger;
-    private final String myOperationId;
+    private final GradleEventIdFactory myEventIdFactory;
+    private final GradleToolingApiTestReporter myTestReporter;
 
+    /**
+     * @param testReporter reports the test events, null if the tests are reported by the init script
+     */
     public GradleToolingApiProgressListener(BuildLifecycleListener buildLifecycleListener,
                                             GradleToolingLogger logger,
-                                            String buildNumber) {
+                                            String buildNumber,
+                                            @Nullable GradleToolingApiTestReporter testReporter) {
         myListener = buildLifecycleListener;
         myLogger = logger;
-        myOperationId = String.format("GradleTAPIBuild-%s", buildNumber);
+        myEventIdFactory = new GradleEventIdFactory(String.format("GradleTAPIBuild-%s", buildNumber));
+        myTestReporter = testReporter;
     }
 
     @Override
     public void statusChanged(ProgressEvent event) {
-        BuildEvent buildEvent = GradleProgressEventConverter.createTaskNotificationEvent(event, myOperationId);
+        if (myTestReporter != null && GradleToolingApiTestReporter.isTestEvent(event)) {
+            myTestReporter.onEvent(event);
+            return;
+        }
+        if (event instanceof FileDownloadStartEvent) {
+            // only the finish event carries the download result
+            return;
+        }
+
+        BuildEvent buildEvent = GradleProgressEventConverter.createTaskNotificationEvent(event, myEventIdFactory);
         if (buildEvent != null) {
             myListener.onStatusChange(buildEvent);
         } else {
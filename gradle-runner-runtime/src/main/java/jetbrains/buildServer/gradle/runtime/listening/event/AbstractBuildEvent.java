@@ -1,16 +1,35 @@
 package jetbrains.buildServer.gradle.runtime.listening.event;
 
+import java.util.function.Function;
+import org.gradle.tooling.events.OperationDescriptor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractBuildEvent implements BuildEvent {
 
-    private final String myEventId;
+    private volatile String myEventId;
+    private final OperationDescriptor myDescriptor;
+    private final Function<OperationDescriptor, String> myEventIdFactory;
     private final long myEventTimestamp;
     private final String myMessage;
 
     public AbstractBuildEvent(@Nullable String eventId, long eventTimestamp, @NotNull String message) {
         myEventId = eventId;
+        myDescriptor = null;
+        myEventIdFactory = null;
+        myEventTimestamp = eventTimestamp;
+        myMessage = message;
+    }
+
+    /**
+     * Creates an event whose id is built from the descriptor on the first {@link #getId()} call
+     */
+    public AbstractBuildEvent(@NotNull OperationDescriptor descriptor,
+                              @NotNull Function<OperationDescriptor, String> eventIdFactory,
+                              long eventTimestamp,
+                              @NotNull String message) {
+        myDescriptor = descriptor;
+        myEventIdFactory = eventIdFactory;
         myEventTimestamp = eventTimestamp;
         myMessage = message;
     }
@@ -18,7 +37,20 @@ public abstract class AbstractBuildEvent implements BuildEvent {
     @Override
     @Nullable
     public String getId() {
-        return myEventId;
+        String eventId = myEventId;
+        if (eventId == null && myDescriptor != null) {
+            eventId = myEventIdFactory.apply(myDescriptor);
+            myEventId = eventId;
+        }
+        return eventId;
+    }
+
+    /**
+     * @return the Tooling API descriptor of the operation the event was created from, if any
+     */
+    @Nullable
+    public OperationDescriptor getDescriptor() {
+        return myDescriptor;
     }
 
     @Override
@@ -35,7 +67,7 @@ public abstract class AbstractBuildEvent implements BuildEvent {
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
-               "myEventId=" + myEventId +
+               "myEventId=" + getId() +
                ", myEventTime=" + myEventTimestamp +
                ", myMessage='" + myMessage + '\'' +
                '}';
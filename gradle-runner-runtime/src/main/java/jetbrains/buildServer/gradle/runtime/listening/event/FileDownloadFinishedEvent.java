@@ -0,0 +1,10 @@
+package jetbrains.buildServer.gradle.runtime.listening.event;
+
+public interface FileDownloadFinishedEvent extends BuildEvent {
+
+    long getBytesDownloaded();
+
+    long getDurationMs();
+
+    boolean isFailed();
+}
@@ -0,0 +1,36 @@
+package jetbrains.buildServer.gradle.runtime.listening.event;
+
+import org.jetbrains.annotations.NotNull;
+
+public class FileDownloadFinishedEventImpl extends AbstractBuildEvent implements FileDownloadFinishedEvent {
+
+    private final long myBytesDownloaded;
+    private final long myDurationMs;
+    private final boolean myFailed;
+
+    public FileDownloadFinishedEventImpl(long eventTimestamp,
+                                         @NotNull String message,
+                                         long bytesDownloaded,
+                                         long durationMs,
+                                         boolean failed) {
+        super(null, eventTimestamp, message);
+        myBytesDownloaded = bytesDownloaded;
+        myDurationMs = durationMs;
+        myFailed = failed;
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return myBytesDownloaded;
+    }
+
+    @Override
+    public long getDurationMs() {
+        return myDurationMs;
+    }
+
+    @Override
+    public boolean isFailed() {
+        return myFailed;
+    }
+}
@@ -1,4 +1,14 @@
 package jetbrains.buildServer.gradle.runtime.listening.event;
 
 public interface SuccessResult extends EventResult {
+
+    /**
+     * @return true if the task was not executed because its outputs were up-to-date
+     */
+    boolean isUpToDate();
+
+    /**
+     * @return true if the outputs of the task were loaded from the build cache
+     */
+    boolean isFromCache();
 }
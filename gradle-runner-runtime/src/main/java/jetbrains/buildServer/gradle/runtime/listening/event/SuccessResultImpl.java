@@ -1,4 +1,26 @@
 package jetbrains.buildServer.gradle.runtime.listening.event;
 
 public class SuccessResultImpl implements SuccessResult {
-}
\ No newline at end of file
+
+    private final boolean myUpToDate;
+    private final boolean myFromCache;
+
+    public SuccessResultImpl() {
+        this(false, false);
+    }
+
+    public SuccessResultImpl(boolean upToDate, boolean fromCache) {
+        myUpToDate = upToDate;
+        myFromCache = fromCache;
+    }
+
+    @Override
+    public boolean isUpToDate() {
+        return myUpToDate;
+    }
+
+    @Override
+    public boolean isFromCache() {
+        return myFromCache;
+    }
+}
@@ -1,5 +1,19 @@
 package jetbrains.buildServer.gradle.runtime.listening.event;
 
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+
 public interface TaskFinishedEvent extends BuildEvent {
     EventResult getResult();
+
+    /**
+     * @return the time the task was started, in milliseconds since the epoch, or 0 if unknown
+     */
+    long getStartTimestamp();
+
+    /**
+     * @return paths of the tasks this task depends on
+     */
+    @NotNull
+    Collection<String> getDependencies();
 }
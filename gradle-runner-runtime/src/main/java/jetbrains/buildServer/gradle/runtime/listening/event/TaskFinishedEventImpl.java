@@ -1,8 +1,16 @@
 package jetbrains.buildServer.gradle.runtime.listening.event;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Function;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.jetbrains.annotations.NotNull;
+
 public class TaskFinishedEventImpl extends AbstractBuildEvent implements TaskFinishedEvent {
 
     private final EventResult myResult;
+    private final long myStartTimestamp;
+    private final Collection<String> myDependencies;
 
     public TaskFinishedEventImpl(String eventId,
                                  long eventTimestamp,
@@ -10,10 +18,36 @@ public class TaskFinishedEventImpl extends AbstractBuildEvent implements TaskFin
                                  EventResult result) {
         super(eventId, eventTimestamp, message);
         myResult = result;
+        myStartTimestamp = 0;
+        myDependencies = Collections.emptyList();
+    }
+
+    public TaskFinishedEventImpl(OperationDescriptor descriptor,
+                                 Function<OperationDescriptor, String> eventIdFactory,
+                                 long eventTimestamp,
+                                 String message,
+                                 EventResult result,
+                                 long startTimestamp,
+                                 @NotNull Collection<String> dependencies) {
+        super(descriptor, eventIdFactory, eventTimestamp, message);
+        myResult = result;
+        myStartTimestamp = startTimestamp;
+        myDependencies = dependencies;
     }
 
     @Override
     public EventResult getResult() {
         return myResult;
     }
+
+    @Override
+    public long getStartTimestamp() {
+        return myStartTimestamp;
+    }
+
+    @Override
+    @NotNull
+    public Collection<String> getDependencies() {
+        return myDependencies;
+    }
 }
@@ -1,5 +1,7 @@
 package jetbrains.buildServer.gradle.runtime.listening.event;
 
+import java.util.function.Function;
+import org.gradle.tooling.events.OperationDescriptor;
 import org.jetbrains.annotations.NotNull;
 
 public class TaskStartedEventImpl extends AbstractBuildEvent implements TaskStartedEvent {
@@ -7,4 +9,11 @@ public class TaskStartedEventImpl extends AbstractBuildEvent implements TaskStar
     public TaskStartedEventImpl(@NotNull String eventId, long eventTimestamp, @NotNull String message) {
         super(eventId, eventTimestamp, message);
     }
-}
\ No newline at end of file
+
+    public TaskStartedEventImpl(@NotNull OperationDescriptor descriptor,
+                                @NotNull Function<OperationDescriptor, String> eventIdFactory,
+                                long eventTimestamp,
+                                @NotNull String message) {
+        super(descriptor, eventIdFactory, eventTimestamp, message);
+    }
+}
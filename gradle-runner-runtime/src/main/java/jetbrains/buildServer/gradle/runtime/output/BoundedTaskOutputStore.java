@@ -0,0 +1,148 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps task output in memory while its total size is within the byte budget.
+ * When the budget is exceeded, the lines held in memory are moved to a single append-only segment file,
+ * and every task remembers the file regions that belong to it.
+ */
+public class BoundedTaskOutputStore implements TaskOutputStore {
+
+  public static final long DEFAULT_MEMORY_BUDGET_BYTES = 8L * 1024 * 1024;
+
+  private static final String SEGMENT_FILENAME = "task-output.segment";
+  private static final char LINE_SEPARATOR = '\n';
+
+  private final GradleToolingLogger myLogger;
+  private final File mySegmentFile;
+  private final long myMemoryBudgetBytes;
+  private final Map<String, TaskOutput> myTasks = new HashMap<>();
+  private long myMemoryBytes = 0;
+  private FileChannel mySegmentChannel;
+  private long mySegmentSize = 0;
+
+  public BoundedTaskOutputStore(@NotNull String taskOutputDir,
+                                long memoryBudgetBytes,
+                                @NotNull GradleToolingLogger logger) {
+    mySegmentFile = new File(taskOutputDir, SEGMENT_FILENAME);
+    myMemoryBudgetBytes = memoryBudgetBytes;
+    myLogger = logger;
+  }
+
+  @Override
+  public synchronized void append(@NotNull String taskPath, @NotNull String line) {
+    myTasks.computeIfAbsent(taskPath, k -> new TaskOutput()).myLines.add(line);
+    myMemoryBytes += estimateSize(line);
+
+    if (myMemoryBytes > myMemoryBudgetBytes) {
+      spill();
+    }
+  }
+
+  @NotNull
+  @Override
+  public synchronized List<String> getLines(@NotNull String taskPath) {
+    TaskOutput output = myTasks.get(taskPath);
+    if (output == null) {
+      return Collections.emptyList();
+    }
+
+    List<String> result = new ArrayList<>();
+    for (Segment segment : output.mySegments) {
+      try {
+        result.addAll(readSegment(segment));
+      } catch (IOException e) {
+        myLogger.warn(String.format("Couldn't read task output from a file: task=%s, outputFile=%s", taskPath, mySegmentFile.getAbsolutePath()));
+      }
+    }
+    result.addAll(output.myLines);
+    return result;
+  }
+
+  @Override
+  public synchronized void close() {
+    myTasks.clear();
+    myMemoryBytes = 0;
+    if (mySegmentChannel != null) {
+      try {
+        mySegmentChannel.close();
+        mySegmentChannel = null;
+      } catch (IOException e) {
+        myLogger.warn(String.format("Error while trying to close a file: file=%s", mySegmentFile.getAbsolutePath()));
+      }
+    }
+  }
+
+  /**
+   * @return the number of bytes moved from memory to the segment file
+   */
+  public synchronized long getSpilledBytes() {
+    return mySegmentSize;
+  }
+
+  private void spill() {
+    try {
+      if (mySegmentChannel == null) {
+        mySegmentChannel = FileChannel.open(mySegmentFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+
+      for (TaskOutput output : myTasks.values()) {
+        if (output.myLines.isEmpty()) continue;
+
+        byte[] bytes = String.join(String.valueOf(LINE_SEPARATOR), output.myLines).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = mySegmentSize;
+        while (buffer.hasRemaining()) {
+          mySegmentChannel.write(buffer, position + buffer.position());
+        }
+        output.mySegments.add(new Segment(position, bytes.length));
+        mySegmentSize += bytes.length;
+        output.myLines.clear();
+      }
+      myMemoryBytes = 0;
+    } catch (IOException e) {
+      // keep the output in memory, it is better than losing it
+      myLogger.warn(String.format("Couldn't write task output to a file: outputFile=%s, message=%s", mySegmentFile.getAbsolutePath(), e.getMessage()));
+    }
+  }
+
+  @NotNull
+  private List<String> readSegment(@NotNull Segment segment) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(segment.myLength);
+    while (buffer.hasRemaining()) {
+      if (mySegmentChannel.read(buffer, segment.myOffset + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file: " + mySegmentFile.getAbsolutePath());
+      }
+    }
+    String content = new String(buffer.array(), StandardCharsets.UTF_8);
+    return Arrays.asList(content.split(String.valueOf(LINE_SEPARATOR), -1));
+  }
+
+  private static long estimateSize(@NotNull String line) {
+    return (long)line.length() * Character.BYTES;
+  }
+
+  private static class TaskOutput {
+    private final List<String> myLines = new ArrayList<>();
+    private final List<Segment> mySegments = new ArrayList<>();
+  }
+
+  private static class Segment {
+    private final long myOffset;
+    private final int myLength;
+
+    private Segment(long offset, int length) {
+      myOffset = offset;
+      myLength = length;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import jetbrains.buildServer.gradle.runtime.listening.BuildEventListener;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.BuildFinishedEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.FileDownloadFinishedEvent;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Collects the files downloaded by Gradle (dependencies, plugins, etc.) and reports them as build statistics when the build is finished
+ */
+public class FileDownloadStatisticsListener implements BuildEventListener {
+
+  public static final String DOWNLOADS_COUNT_KEY = "gradle.fileDownloads.count";
+  public static final String DOWNLOADS_FAILED_KEY = "gradle.fileDownloads.failed";
+  public static final String DOWNLOADS_BYTES_KEY = "gradle.fileDownloads.bytes";
+  public static final String DOWNLOADS_DURATION_KEY = "gradle.fileDownloads.durationMs";
+
+  private final GradleToolingLogger myLogger;
+  private final AtomicLong myCount = new AtomicLong();
+  private final AtomicLong myFailed = new AtomicLong();
+  private final AtomicLong myBytes = new AtomicLong();
+  private final AtomicLong myDurationMs = new AtomicLong();
+
+  public FileDownloadStatisticsListener(@NotNull GradleToolingLogger logger) {
+    myLogger = logger;
+  }
+
+  @Override
+  public void onEvent(@NotNull BuildEvent event) {
+    if (event instanceof FileDownloadFinishedEvent) {
+      FileDownloadFinishedEvent downloadEvent = (FileDownloadFinishedEvent)event;
+      myCount.incrementAndGet();
+      if (downloadEvent.isFailed()) {
+        myFailed.incrementAndGet();
+      }
+      myBytes.addAndGet(downloadEvent.getBytesDownloaded());
+      myDurationMs.addAndGet(downloadEvent.getDurationMs());
+    } else if (event instanceof BuildFinishedEvent) {
+      reportStatistics();
+    }
+  }
+
+  private void reportStatistics() {
+    if (myCount.get() == 0) return;
+
+    Map<String, Long> statistics = new LinkedHashMap<>();
+    statistics.put(DOWNLOADS_COUNT_KEY, myCount.get());
+    statistics.put(DOWNLOADS_FAILED_KEY, myFailed.get());
+    statistics.put(DOWNLOADS_BYTES_KEY, myBytes.get());
+    statistics.put(DOWNLOADS_DURATION_KEY, myDurationMs.get());
+    statistics.forEach((key, value) -> {
+      Map<String, String> attributes = new LinkedHashMap<>();
+      attributes.put("key", key);
+      attributes.put("value", String.valueOf(value));
+      myLogger.lifecycle(ServiceMessage.asString("buildStatisticValue", attributes));
+    });
+  }
+}
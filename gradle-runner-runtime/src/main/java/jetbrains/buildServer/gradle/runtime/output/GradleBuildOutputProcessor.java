@@ -1,24 +1,27 @@
 package jetbrains.buildServer.gradle.runtime.output;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 import jetbrains.buildServer.gradle.runtime.BuildContext;
 import jetbrains.buildServer.gradle.runtime.listening.BuildEventListener;
+import jetbrains.buildServer.gradle.runtime.listening.event.AbstractBuildEvent;
 import jetbrains.buildServer.gradle.runtime.listening.event.BuildEvent;
 import jetbrains.buildServer.gradle.runtime.listening.event.BuildFinishedEvent;
 import jetbrains.buildServer.gradle.runtime.listening.event.FailureKind;
 import jetbrains.buildServer.gradle.runtime.listening.event.FailureResult;
 import jetbrains.buildServer.gradle.runtime.listening.event.TaskFinishedEvent;
 import jetbrains.buildServer.gradle.runtime.listening.event.TaskOutputEvent;
+import jetbrains.buildServer.gradle.runtime.listening.event.TaskStartedEvent;
 import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
 import jetbrains.buildServer.messages.serviceMessages.CompilationFinished;
 import jetbrains.buildServer.messages.serviceMessages.CompilationStarted;
 import jetbrains.buildServer.messages.serviceMessages.Message;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
+import org.gradle.tooling.events.OperationDescriptor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import static jetbrains.buildServer.gradle.GradleRunnerConstants.GRADLE_RUNNER_TASK_OUTPUT_MEMORY_BUDGET_CONFIG_PARAM;
+
 /**
  * Processes output of the build process
  */
@@ -33,23 +36,32 @@ public class GradleBuildOutputProcessor implements BuildEventListener {
   private static final int TASK_NAME_LAST_WHITESPACE_INDEX = 6;
 
   private final GradleToolingLogger myLogger;
-  private final String myTaskOutputDir;
-  private volatile String currentTask = null;
-  private final Map<String, GradleBuildOutputWrapper> tasksErrorOutput;
+  private final TaskOutputAttributor taskOutputAttributor;
+  private final TaskOutputStore tasksErrorOutput;
   private final List<BuildFailedTaskData> failedTasks;
 
   public GradleBuildOutputProcessor(GradleToolingLogger logger,
                                     BuildContext buildContext) {
+    this(logger, new BoundedTaskOutputStore(buildContext.getTaskOutputDir(),
+                                            Long.getLong(GRADLE_RUNNER_TASK_OUTPUT_MEMORY_BUDGET_CONFIG_PARAM, BoundedTaskOutputStore.DEFAULT_MEMORY_BUDGET_BYTES),
+                                            logger));
+  }
+
+  public GradleBuildOutputProcessor(GradleToolingLogger logger,
+                                    TaskOutputStore taskOutputStore) {
     myLogger = logger;
-    myTaskOutputDir = buildContext.getTaskOutputDir();
-    tasksErrorOutput = new ConcurrentHashMap<>();
+    taskOutputAttributor = new TaskOutputAttributor();
+    tasksErrorOutput = taskOutputStore;
     failedTasks = new ArrayList<>();
   }
 
   @Override
   public void onEvent(@NotNull BuildEvent event) {
-    if (event instanceof TaskFinishedEvent) {
+    if (event instanceof TaskStartedEvent) {
+      taskOutputAttributor.taskStarted(getOperation(event), event.getMessage());
+    } else if (event instanceof TaskFinishedEvent) {
       TaskFinishedEvent taskFinishedEvent = (TaskFinishedEvent) event;
+      taskOutputAttributor.taskFinished(getOperation(event), event.getMessage());
       if (taskFinishedEvent.getResult() instanceof FailureResult) {
         FailureResult failureResult = (FailureResult) taskFinishedEvent.getResult();
         BuildFailedTaskData failedTask = new BuildFailedTaskData(taskFinishedEvent.getMessage(), failureResult.getFailureKind());
@@ -62,35 +74,66 @@ public class GradleBuildOutputProcessor implements BuildEventListener {
       BuildFinishedEvent buildFinishedEvent = (BuildFinishedEvent) event;
       switch (buildFinishedEvent.getResult()) {
         case SUCCEEDED:
-          closeTaskOutputWrappers();
+          tasksErrorOutput.close();
           return;
         case FAILED:
-          closeTaskOutputWrappers();
           collectFailureMessages();
+          tasksErrorOutput.close();
           processFailedTasks();
       }
     }
   }
 
+  /**
+   * The descriptor identifies the task operation without building the event id, which is created lazily
+   */
+  @Nullable
+  private static Object getOperation(@NotNull BuildEvent event) {
+    if (event instanceof AbstractBuildEvent) {
+      OperationDescriptor descriptor = ((AbstractBuildEvent)event).getDescriptor();
+      if (descriptor != null) return descriptor;
+    }
+    return event.getId();
+  }
+
   private void append(@NotNull String line, @NotNull OutputType outputType) {
     if (line.isEmpty()) return;
 
-    if (line.startsWith("> Task :")) {
-      currentTask = parseTaskName(line);
+    // the first character tells whether the line may be a header, so most of the lines are not compared with the prefixes at all
+    switch (line.charAt(0)) {
+      case '>':
+        if (line.startsWith("> Task :")) {
+          taskOutputAttributor.taskAnnounced(parseTaskName(line));
+        } else if (line.startsWith("> Configure")) {
+          taskOutputAttributor.taskAnnounced(null);
+        }
+        break;
+      case 'F':
+        resetAnnouncedTaskIf(line.startsWith("FAILURE: "));
+        break;
+      case 'C':
+        resetAnnouncedTaskIf(line.startsWith("CONFIGURE SUCCESSFUL"));
+        break;
+      case 'B':
+        resetAnnouncedTaskIf(line.startsWith("BUILD SUCCESSFUL"));
+        break;
     }
-    else if (line.startsWith("> Configure") ||
-             line.startsWith("FAILURE: ") ||
-             line.startsWith("CONFIGURE SUCCESSFUL") ||
-             line.startsWith("BUILD SUCCESSFUL") ||
-             line.endsWith("storing the configuration cache.")) {
-      currentTask = null;
+    // "N problems were found storing the configuration cache.", checked only if the line ends with the period
+    if (line.charAt(line.length() - 1) == '.') {
+      resetAnnouncedTaskIf(line.endsWith("storing the configuration cache."));
     }
 
-    if (currentTask != null && OutputType.STD_ERR == outputType) {
+    if (OutputType.STD_ERR == outputType) {
       appendToTaskErrorOutput(line);
     }
   }
 
+  private void resetAnnouncedTaskIf(boolean condition) {
+    if (condition) {
+      taskOutputAttributor.taskAnnounced(null);
+    }
+  }
+
   @Nullable
   private String parseTaskName(@NotNull String line) {
     try {
@@ -105,11 +148,10 @@ public class GradleBuildOutputProcessor implements BuildEventListener {
   }
 
   private void appendToTaskErrorOutput(@NotNull String line) {
-    tasksErrorOutput.computeIfAbsent(currentTask, k -> new GradleBuildOutputWrapper(myTaskOutputDir, currentTask, myLogger)).append(line);
-  }
-
-  private void closeTaskOutputWrappers() {
-    tasksErrorOutput.forEach((task, outputWrapper) -> outputWrapper.close());
+    String task = taskOutputAttributor.getOutputOwner();
+    if (task != null) {
+      tasksErrorOutput.append(task, line);
+    }
   }
 
   private void collectFailureMessages() {
@@ -120,10 +162,7 @@ public class GradleBuildOutputProcessor implements BuildEventListener {
 
   @NotNull
   private List<String> getTaskErrorMessages(@NotNull String taskPath) {
-    return Optional.ofNullable(tasksErrorOutput.get(taskPath))
-                   .map(taskOutputWrapper -> Arrays.stream(taskOutputWrapper.getOutput().split("\\r?\\n"))
-                                            .collect(Collectors.toList()))
-                   .orElseGet(Collections::emptyList);
+    return tasksErrorOutput.getLines(taskPath);
   }
 
   private void processFailedTasks() {
@@ -2,16 +2,33 @@ package jetbrains.buildServer.gradle.runtime.output;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import jetbrains.buildServer.gradle.runtime.listening.BuildLifecycleListener;
 import jetbrains.buildServer.gradle.runtime.listening.event.TaskOutputEventImpl;
 
 /**
  * Wraps Gradle Tooling API build output in order to delegate it and have an option to postprocess it.
+ * The raw bytes are passed to the delegate as is, while the postprocessing side receives the output line by line.
+ * Bytes are decoded incrementally into reusable buffers, so multibyte characters split between writes are preserved.
+ * Buffer methods are called via {@link Buffer} to stay binary compatible with Java 8.
  */
 public class GradleOutputWrapper extends OutputStream {
 
-  private StringBuilder myBuffer;
+  private static final int BUFFER_SIZE = 8192;
+
+  private final ByteBuffer myBytes = ByteBuffer.allocate(BUFFER_SIZE);
+  private final CharBuffer myChars = CharBuffer.allocate(BUFFER_SIZE);
+  private final StringBuilder myLine = new StringBuilder();
+  private final byte[] mySingleByte = new byte[1];
+  private final CharsetDecoder myDecoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
 
   private final BuildLifecycleListener myBuildLifecycleListener;
   private final OutputStream myDelegate;
@@ -19,48 +36,92 @@ public class GradleOutputWrapper extends OutputStream {
 
   public GradleOutputWrapper(BuildLifecycleListener buildLifecycleListener,
                              OutputType outputType) {
+    this(buildLifecycleListener, outputType, OutputType.STD_OUT == outputType ? System.out : System.err);
+  }
+
+  public GradleOutputWrapper(BuildLifecycleListener buildLifecycleListener,
+                             OutputType outputType,
+                             OutputStream delegate) {
     myBuildLifecycleListener = buildLifecycleListener;
     myOutputType = outputType;
-
-    if (OutputType.STD_OUT == outputType) {
-      myDelegate = System.out;
-    } else {
-      myDelegate = System.err;
-    }
+    myDelegate = delegate;
   }
 
   @Override
   public synchronized void write(int b) throws IOException {
     myDelegate.write(b);
 
-    if (myBuffer == null) {
-      myBuffer = new StringBuilder();
-    }
-    myBuffer.append((char)b);
+    mySingleByte[0] = (byte)b;
+    decode(mySingleByte, 0, 1, false);
   }
 
   @Override
   public synchronized void write(byte[] b, int off, int len) throws IOException {
     myDelegate.write(b, off, len);
 
-    if (myBuffer == null) {
-      myBuffer = new StringBuilder();
-    }
-    myBuffer.append(new String(b, off, len, StandardCharsets.UTF_8));
+    decode(b, off, len, false);
   }
 
   @Override
   public synchronized void flush() throws IOException {
-    doFlush();
+    myDelegate.flush();
   }
 
-  private void doFlush() throws IOException {
+  /**
+   * Reports the last line even if it is not terminated. The delegate stream is not closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
     myDelegate.flush();
 
-    if (myBuffer == null) {
-      return;
+    decode(mySingleByte, 0, 0, true);
+    myDecoder.flush(myChars);
+    drainChars();
+    if (myLine.length() > 0) {
+      fireLine();
+    }
+    myDecoder.reset();
+  }
+
+  private void decode(byte[] b, int off, int len, boolean endOfInput) {
+    do {
+      int chunk = Math.min(len, myBytes.remaining());
+      myBytes.put(b, off, chunk);
+      off += chunk;
+      len -= chunk;
+
+      ((Buffer)myBytes).flip();
+      CoderResult result;
+      do {
+        result = myDecoder.decode(myBytes, myChars, endOfInput && len == 0);
+        drainChars();
+      } while (result.isOverflow());
+      myBytes.compact();
+    } while (len > 0);
+  }
+
+  private void drainChars() {
+    ((Buffer)myChars).flip();
+    char[] chars = myChars.array();
+    int start = myChars.position();
+    int end = myChars.limit();
+    for (int i = start; i < end; i++) {
+      if (chars[i] == '\n') {
+        myLine.append(chars, start, i - start);
+        fireLine();
+        start = i + 1;
+      }
+    }
+    myLine.append(chars, start, end - start);
+    ((Buffer)myChars).clear();
+  }
+
+  private void fireLine() {
+    int length = myLine.length();
+    if (length > 0 && myLine.charAt(length - 1) == '\r') {
+      length--;
     }
-    myBuildLifecycleListener.onTaskOutput(new TaskOutputEventImpl(System.currentTimeMillis(), myBuffer.toString(), myOutputType));
-    myBuffer.setLength(0);
+    myBuildLifecycleListener.onTaskOutput(new TaskOutputEventImpl(System.currentTimeMillis(), myLine.substring(0, length), myOutputType));
+    myLine.setLength(0);
   }
 }
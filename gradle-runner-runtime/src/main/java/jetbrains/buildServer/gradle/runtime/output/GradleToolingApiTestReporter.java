@@ -0,0 +1,185 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
+import org.gradle.tooling.Failure;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.gradle.tooling.events.ProgressEvent;
+import org.gradle.tooling.events.test.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reports tests executed by Gradle using the Tooling API test events,
+ * so the init script doesn't have to print the test service messages to the build output.
+ * <p>
+ * Every test class gets its own flow, so the classes executed by parallel test workers don't mix.
+ * Test names are composed as "className.methodName".
+ * See {@link jetbrains.buildServer.gradle.GradleRunnerConstants#GRADLE_RUNNER_TOOLING_API_TEST_EVENTS_CONFIG_PARAM}
+ * for the init script test listener features not supported here.
+ */
+public class GradleToolingApiTestReporter {
+
+  private static final String FLOW_ID_PREFIX = "%%teamcity%%-tapi-";
+
+  private final GradleToolingLogger myLogger;
+  private final boolean myIgnoreStdOut;
+  private final boolean myIgnoreStdErr;
+  /**
+   * The flow ids of the running test classes by their keys
+   */
+  private final Map<String, String> myFlowIds = new HashMap<>();
+  private long myFlowCounter = 0;
+
+  public GradleToolingApiTestReporter(@NotNull GradleToolingLogger logger) {
+    this(logger, false, false);
+  }
+
+  /**
+   * @param ignoreStdOut the teamcity.ignoreTestStdOut property, the test stdout is not reported if it is set
+   * @param ignoreStdErr the teamcity.ignoreTestStdErr property, the test stderr is not reported if it is set
+   */
+  public GradleToolingApiTestReporter(@NotNull GradleToolingLogger logger, boolean ignoreStdOut, boolean ignoreStdErr) {
+    myLogger = logger;
+    myIgnoreStdOut = ignoreStdOut;
+    myIgnoreStdErr = ignoreStdErr;
+  }
+
+  public static boolean isTestEvent(@NotNull ProgressEvent event) {
+    return event instanceof TestProgressEvent || event instanceof TestOutputEvent;
+  }
+
+  public void onEvent(@NotNull ProgressEvent event) {
+    if (event instanceof TestOutputEvent) {
+      onTestOutput((TestOutputEvent)event);
+      return;
+    }
+
+    if (!(event.getDescriptor() instanceof JvmTestOperationDescriptor)) return;
+    JvmTestOperationDescriptor descriptor = (JvmTestOperationDescriptor)event.getDescriptor();
+
+    if (isTestClass(descriptor)) {
+      String type = event instanceof TestStartEvent ? "testSuiteStarted" : event instanceof TestFinishEvent ? "testSuiteFinished" : null;
+      if (type != null) {
+        Map<String, String> attributes = attributes(descriptor.getClassName(), descriptor);
+        report(type, attributes);
+        if (event instanceof TestFinishEvent) {
+          releaseFlowId(descriptor);
+        }
+      }
+    } else if (descriptor.getJvmTestKind() == JvmTestKind.ATOMIC) {
+      if (event instanceof TestStartEvent) {
+        Map<String, String> attributes = attributes(getTestName(descriptor), descriptor);
+        attributes.put("captureStandardOutput", "false");
+        report("testStarted", attributes);
+      } else if (event instanceof TestFinishEvent) {
+        onTestFinished(descriptor, ((TestFinishEvent)event).getResult());
+      }
+    }
+  }
+
+  private void onTestFinished(@NotNull JvmTestOperationDescriptor descriptor, @NotNull TestOperationResult result) {
+    String testName = getTestName(descriptor);
+    if (result instanceof TestFailureResult) {
+      Map<String, String> attributes = attributes(testName, descriptor);
+      List<? extends Failure> failures = ((TestFailureResult)result).getFailures();
+      Failure failure = failures.isEmpty() ? null : failures.get(0);
+      attributes.put("message", failure != null && failure.getMessage() != null ? failure.getMessage() : "");
+      attributes.put("details", failure != null && failure.getDescription() != null ? failure.getDescription() : "");
+      report("testFailed", attributes);
+    } else if (result instanceof TestSkippedResult) {
+      Map<String, String> attributes = attributes(testName, descriptor);
+      attributes.put("message", "");
+      report("testIgnored", attributes);
+    }
+
+    Map<String, String> attributes = attributes(testName, descriptor);
+    attributes.put("duration", String.valueOf(result.getEndTime() - result.getStartTime()));
+    report("testFinished", attributes);
+  }
+
+  private void onTestOutput(@NotNull TestOutputEvent event) {
+    TestOutputDescriptor descriptor = event.getDescriptor();
+    boolean stdErr = descriptor.getDestination() == Destination.StdErr;
+    if (stdErr ? myIgnoreStdErr : myIgnoreStdOut) return;
+
+    OperationDescriptor parent = descriptor.getParent();
+    if (!(parent instanceof JvmTestOperationDescriptor) || ((JvmTestOperationDescriptor)parent).getJvmTestKind() != JvmTestKind.ATOMIC) return;
+
+    String message = descriptor.getMessage();
+    if (message.endsWith("\n")) {
+      message = message.substring(0, message.length() - (message.endsWith("\r\n") ? 2 : 1));
+    }
+    if (message.isEmpty()) return;
+
+    JvmTestOperationDescriptor test = (JvmTestOperationDescriptor)parent;
+    Map<String, String> attributes = attributes(getTestName(test), test);
+    attributes.put("out", message);
+    report(stdErr ? "testStdErr" : "testStdOut", attributes);
+  }
+
+  private void report(@NotNull String type, @NotNull Map<String, String> attributes) {
+    myLogger.lifecycle(ServiceMessage.asString(type, attributes));
+  }
+
+  @NotNull
+  private Map<String, String> attributes(@NotNull String name, @NotNull JvmTestOperationDescriptor descriptor) {
+    Map<String, String> attributes = new HashMap<>();
+    attributes.put("name", name);
+    String flowId = getFlowId(descriptor);
+    if (flowId != null) {
+      attributes.put("flowId", flowId);
+    }
+    return attributes;
+  }
+
+  @NotNull
+  private static String getTestName(@NotNull JvmTestOperationDescriptor descriptor) {
+    if (descriptor.getClassName() == null || descriptor.getMethodName() == null) {
+      return descriptor.getDisplayName();
+    }
+    return descriptor.getClassName() + "." + descriptor.getMethodName();
+  }
+
+  private static boolean isTestClass(@NotNull JvmTestOperationDescriptor descriptor) {
+    return descriptor.getJvmTestKind() == JvmTestKind.SUITE && descriptor.getClassName() != null;
+  }
+
+  /**
+   * The flow is the closest test class of the descriptor, every running test class gets the next id of the counter
+   */
+  @Nullable
+  private synchronized String getFlowId(@NotNull JvmTestOperationDescriptor descriptor) {
+    String key = getFlowKey(descriptor);
+    if (key == null) return null;
+    return myFlowIds.computeIfAbsent(key, it -> FLOW_ID_PREFIX + (++myFlowCounter));
+  }
+
+  private synchronized void releaseFlowId(@NotNull JvmTestOperationDescriptor testClass) {
+    String key = getFlowKey(testClass);
+    if (key != null) {
+      myFlowIds.remove(key);
+    }
+  }
+
+  /**
+   * The key is the path of the closest test class of the descriptor. Its ancestors (test worker and test task) make the key unique.
+   */
+  @Nullable
+  private static String getFlowKey(@NotNull JvmTestOperationDescriptor descriptor) {
+    OperationDescriptor current = descriptor;
+    while (current != null && !(current instanceof JvmTestOperationDescriptor && isTestClass((JvmTestOperationDescriptor)current))) {
+      current = current.getParent();
+    }
+    if (current == null) return null;
+
+    StringBuilder key = new StringBuilder();
+    for (OperationDescriptor it = current; it != null; it = it.getParent()) {
+      key.append(it.getDisplayName()).append('/');
+    }
+    return key.toString();
+  }
+}
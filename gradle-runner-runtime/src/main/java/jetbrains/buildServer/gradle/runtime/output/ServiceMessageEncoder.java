@@ -0,0 +1,139 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.io.IOException;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Encodes TeamCity service messages for the init scripts, which emit one for every test event and every chunk of the test output.
+ * <p>
+ * The attributes are written in the order the init scripts always used: tc:tags first, then the rest in the map order, then flowId and parent.
+ * A message with the "" attribute is written in the single value form: {@code ##teamcity[name 'value']}.
+ * <p>
+ * ASCII characters are escaped using a lookup table, and the messages are built in a thread-local buffer reused between calls.
+ */
+public final class ServiceMessageEncoder {
+  private static final String START_MESSAGE = "##teamcity[";
+  private static final char END_MESSAGE = ']';
+  private static final char ESCAPE_CHARACTER = '|';
+  private static final String SINGLE_VALUE_ATTRIBUTE = "";
+  private static final String TAGS_ATTRIBUTE = "tc:tags";
+  private static final String FLOW_ID_ATTRIBUTE = "flowId";
+  private static final String PARENT_ATTRIBUTE = "parent";
+
+  private static final int INITIAL_BUFFER_CAPACITY = 1024;
+  /**
+   * A buffer grown by a large message (e.g. a test output chunk, up to 18K chars by default) is kept, a larger one is dropped
+   */
+  private static final int MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+  private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CAPACITY));
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  /**
+   * The escaped form of every ASCII character, null if the character is written as is
+   */
+  private static final String[] ASCII_ESCAPES = new String[128];
+
+  static {
+    ASCII_ESCAPES['\n'] = "|n";
+    ASCII_ESCAPES['\r'] = "|r";
+    ASCII_ESCAPES['|'] = "||";
+    ASCII_ESCAPES['\''] = "|'";
+    ASCII_ESCAPES['['] = "|[";
+    ASCII_ESCAPES[']'] = "|]";
+  }
+
+  private ServiceMessageEncoder() {
+  }
+
+  @NotNull
+  public static String encode(@NotNull String name, @Nullable Map<String, ?> attributes) {
+    StringBuilder buffer = BUFFER.get();
+    buffer.setLength(0);
+    appendMessage(buffer, name, attributes);
+    String result = buffer.toString();
+    if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+      BUFFER.set(new StringBuilder(INITIAL_BUFFER_CAPACITY));
+    }
+    return result;
+  }
+
+  /**
+   * Writes the message directly to the output, without building an intermediate string
+   */
+  public static void write(@NotNull Appendable output, @NotNull String name, @Nullable Map<String, ?> attributes) throws IOException {
+    appendMessage(output, name, attributes);
+  }
+
+  /**
+   * Appends the value escaped as a service message attribute value
+   */
+  public static void appendEscaped(@NotNull Appendable output, @NotNull CharSequence value) throws IOException {
+    int length = value.length();
+    int unescapedFrom = 0;
+    for (int i = 0; i < length; i++) {
+      char ch = value.charAt(i);
+      if (ch < 128) {
+        String escape = ASCII_ESCAPES[ch];
+        if (escape == null) continue;
+        output.append(value, unescapedFrom, i).append(escape);
+      } else {
+        output.append(value, unescapedFrom, i)
+              .append(ESCAPE_CHARACTER).append('0').append('x')
+              .append(HEX_DIGITS[(ch >> 12) & 0xF])
+              .append(HEX_DIGITS[(ch >> 8) & 0xF])
+              .append(HEX_DIGITS[(ch >> 4) & 0xF])
+              .append(HEX_DIGITS[ch & 0xF]);
+      }
+      unescapedFrom = i + 1;
+    }
+    output.append(value, unescapedFrom, length);
+  }
+
+  private static void appendMessage(@NotNull Appendable output, @NotNull String name, @Nullable Map<String, ?> attributes) {
+    try {
+      output.append(START_MESSAGE).append(name);
+      if (attributes != null && !attributes.isEmpty()) {
+        Object singleValue = attributes.get(SINGLE_VALUE_ATTRIBUTE);
+        if (singleValue != null) {
+          appendAttribute(output, null, singleValue);
+        } else {
+          appendAttributes(output, attributes);
+        }
+      }
+      output.append(END_MESSAGE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write service message " + name, e);
+    }
+  }
+
+  private static void appendAttributes(@NotNull Appendable output, @NotNull Map<String, ?> attributes) throws IOException {
+    Object tags = attributes.get(TAGS_ATTRIBUTE);
+    if (tags != null) appendAttribute(output, TAGS_ATTRIBUTE, tags);
+    for (Map.Entry<String, ?> attribute : attributes.entrySet()) {
+      String key = attribute.getKey();
+      if (!isOrderedSeparately(key)) appendAttribute(output, key, attribute.getValue());
+    }
+    Object flowId = attributes.get(FLOW_ID_ATTRIBUTE);
+    if (flowId != null) appendAttribute(output, FLOW_ID_ATTRIBUTE, flowId);
+    Object parent = attributes.get(PARENT_ATTRIBUTE);
+    if (parent != null) appendAttribute(output, PARENT_ATTRIBUTE, parent);
+  }
+
+  private static boolean isOrderedSeparately(@Nullable String key) {
+    return TAGS_ATTRIBUTE.equals(key) || FLOW_ID_ATTRIBUTE.equals(key) || PARENT_ATTRIBUTE.equals(key);
+  }
+
+  private static void appendAttribute(@NotNull Appendable output, @Nullable String key, @Nullable Object value) throws IOException {
+    if (key == null) {
+      output.append(" '");
+    } else {
+      output.append(' ').append(key).append("='");
+    }
+    if (value != null) {
+      appendEscaped(output, value instanceof CharSequence ? (CharSequence)value : value.toString());
+    }
+    output.append('\'');
+  }
+}
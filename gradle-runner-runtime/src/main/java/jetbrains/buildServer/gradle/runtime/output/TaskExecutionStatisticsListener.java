@@ -0,0 +1,149 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import jetbrains.buildServer.gradle.runtime.listening.BuildEventListener;
+import jetbrains.buildServer.gradle.runtime.listening.event.*;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
+import org.jetbrains.annotations.NotNull;
+
+import static jetbrains.buildServer.gradle.GradleRunnerConstants.GRADLE_RUNNER_SLOWEST_TASKS_STATISTICS_CONFIG_PARAM;
+
+/**
+ * Collects the timings of the tasks executed by Gradle and reports them as build statistics when the build is finished:
+ * <ul>
+ *   <li>wall time of the slowest executed tasks, at most {@link #DEFAULT_MAX_REPORTED_TASKS} of them by default, which took at least
+ *   {@link #MIN_REPORTED_TASK_TIME_MS}. Every task gets its own statistic key, so the number of the tasks is limited,
+ *   see {@link jetbrains.buildServer.gradle.GradleRunnerConstants#GRADLE_RUNNER_SLOWEST_TASKS_STATISTICS_CONFIG_PARAM};</li>
+ *   <li>the length of the critical path, the longest chain of dependent tasks;</li>
+ *   <li>shares of the executed, up-to-date and from-cache tasks;</li>
+ *   <li>the peak number of tasks running at the same time.</li>
+ * </ul>
+ * Gradle finishes a task only after all its dependencies are finished, so the critical path is computed on the fly.
+ */
+public class TaskExecutionStatisticsListener implements BuildEventListener {
+
+  public static final long MIN_REPORTED_TASK_TIME_MS = 1000;
+  public static final int DEFAULT_MAX_REPORTED_TASKS = 10;
+
+  public static final String TASKS_COUNT_KEY = "gradle.tasks.count";
+  public static final String TASKS_EXECUTED_RATIO_KEY = "gradle.tasks.executedRatio";
+  public static final String TASKS_UP_TO_DATE_RATIO_KEY = "gradle.tasks.upToDateRatio";
+  public static final String TASKS_FROM_CACHE_RATIO_KEY = "gradle.tasks.fromCacheRatio";
+  public static final String TASKS_TOTAL_TIME_KEY = "gradle.tasks.totalTimeMs";
+  public static final String TASKS_CRITICAL_PATH_KEY = "gradle.tasks.criticalPathMs";
+  public static final String TASKS_PEAK_CONCURRENCY_KEY = "gradle.tasks.peakConcurrency";
+  public static final String TASK_TIME_KEY_FORMAT = "gradle.task.%s.timeMs";
+
+  private final GradleToolingLogger myLogger;
+  private final int myMaxReportedTasks;
+  private final Map<String, Long> myPathLengths = new HashMap<>();
+  /**
+   * The slowest executed tasks found so far, the fastest of them is the head
+   */
+  private final PriorityQueue<Map.Entry<String, Long>> mySlowestTasks = new PriorityQueue<>(Map.Entry.comparingByValue());
+  private int myCount;
+  private int myExecuted;
+  private int myUpToDate;
+  private int myFromCache;
+  private long myTotalTime;
+  private long myCriticalPath;
+  private int myRunning;
+  private int myPeakConcurrency;
+
+  public TaskExecutionStatisticsListener(@NotNull GradleToolingLogger logger) {
+    this(logger, Integer.getInteger(GRADLE_RUNNER_SLOWEST_TASKS_STATISTICS_CONFIG_PARAM, DEFAULT_MAX_REPORTED_TASKS));
+  }
+
+  public TaskExecutionStatisticsListener(@NotNull GradleToolingLogger logger, int maxReportedTasks) {
+    myLogger = logger;
+    myMaxReportedTasks = maxReportedTasks;
+  }
+
+  @Override
+  public synchronized void onEvent(@NotNull BuildEvent event) {
+    if (event instanceof TaskStartedEvent) {
+      myRunning++;
+      myPeakConcurrency = Math.max(myPeakConcurrency, myRunning);
+    } else if (event instanceof TaskFinishedEvent) {
+      myRunning = Math.max(0, myRunning - 1);
+      onTaskFinished((TaskFinishedEvent)event);
+    } else if (event instanceof BuildFinishedEvent) {
+      reportStatistics();
+    }
+  }
+
+  private void onTaskFinished(@NotNull TaskFinishedEvent event) {
+    String taskPath = event.getMessage();
+    long wallTime = event.getStartTimestamp() > 0 ? Math.max(0, event.getEventTimestamp() - event.getStartTimestamp()) : 0;
+    myCount++;
+    myTotalTime += wallTime;
+
+    EventResult result = event.getResult();
+    // Gradle reports the tasks taken from the build cache as up-to-date too
+    if (result instanceof SuccessResult && ((SuccessResult)result).isFromCache()) {
+      myFromCache++;
+    } else if (result instanceof SuccessResult && ((SuccessResult)result).isUpToDate()) {
+      myUpToDate++;
+    } else if (!(result instanceof SkippedResult)) {
+      myExecuted++;
+      if (wallTime >= MIN_REPORTED_TASK_TIME_MS) {
+        addExecutedTaskTime(taskPath, wallTime);
+      }
+    }
+
+    long longestDependency = 0;
+    for (String dependency : event.getDependencies()) {
+      Long length = myPathLengths.get(dependency);
+      if (length != null) {
+        longestDependency = Math.max(longestDependency, length);
+      }
+    }
+    long pathLength = longestDependency + wallTime;
+    myPathLengths.put(taskPath, pathLength);
+    myCriticalPath = Math.max(myCriticalPath, pathLength);
+  }
+
+  private void addExecutedTaskTime(@NotNull String taskPath, long wallTime) {
+    if (myMaxReportedTasks <= 0) return;
+    if (mySlowestTasks.size() < myMaxReportedTasks) {
+      mySlowestTasks.add(new AbstractMap.SimpleImmutableEntry<>(taskPath, wallTime));
+    } else if (mySlowestTasks.peek().getValue() < wallTime) {
+      mySlowestTasks.poll();
+      mySlowestTasks.add(new AbstractMap.SimpleImmutableEntry<>(taskPath, wallTime));
+    }
+  }
+
+  private void reportStatistics() {
+    if (myCount == 0) return;
+
+    Map<String, String> statistics = new LinkedHashMap<>();
+    statistics.put(TASKS_COUNT_KEY, String.valueOf(myCount));
+    statistics.put(TASKS_EXECUTED_RATIO_KEY, ratio(myExecuted));
+    statistics.put(TASKS_UP_TO_DATE_RATIO_KEY, ratio(myUpToDate));
+    statistics.put(TASKS_FROM_CACHE_RATIO_KEY, ratio(myFromCache));
+    statistics.put(TASKS_TOTAL_TIME_KEY, String.valueOf(myTotalTime));
+    statistics.put(TASKS_CRITICAL_PATH_KEY, String.valueOf(myCriticalPath));
+    statistics.put(TASKS_PEAK_CONCURRENCY_KEY, String.valueOf(myPeakConcurrency));
+    mySlowestTasks.stream()
+                  .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                  .forEach(task -> statistics.put(String.format(TASK_TIME_KEY_FORMAT, task.getKey()), String.valueOf(task.getValue())));
+
+    statistics.forEach((key, value) -> {
+      Map<String, String> attributes = new LinkedHashMap<>();
+      attributes.put("key", key);
+      attributes.put("value", value);
+      myLogger.lifecycle(ServiceMessage.asString("buildStatisticValue", attributes));
+    });
+  }
+
+  @NotNull
+  private String ratio(int count) {
+    return String.format(Locale.US, "%.3f", (double)count / myCount);
+  }
+}
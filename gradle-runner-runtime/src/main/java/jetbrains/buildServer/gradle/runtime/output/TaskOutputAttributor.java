@@ -0,0 +1,46 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decides which task the build output belongs to.
+ * <p>
+ * Gradle prints a "> Task :path" header before the output of a task, and the grouped output, such as compile errors, may be printed
+ * after the task has finished, so the task announced by the last header is the owner.
+ * <p>
+ * When no task is announced, e.g. the header was reset by the build result line, the running tasks are the fallback.
+ * They are tracked by the Tooling API task start/finish events keyed by their operations:
+ * the operation descriptor, which the Tooling API passes to both events of a task, or the operation id.
+ * While exactly one task is running, the output belongs to it.
+ */
+public class TaskOutputAttributor {
+
+  private final Map<Object, String> myRunningTasks = new LinkedHashMap<>();
+  private String myAnnouncedTask;
+
+  public synchronized void taskStarted(@Nullable Object operation, @NotNull String taskPath) {
+    myRunningTasks.put(operation != null ? operation : taskPath, taskPath);
+  }
+
+  public synchronized void taskFinished(@Nullable Object operation, @NotNull String taskPath) {
+    myRunningTasks.remove(operation != null ? operation : taskPath);
+  }
+
+  /**
+   * @param taskPath the task from the console header, or null if the output does not belong to any task anymore
+   */
+  public synchronized void taskAnnounced(@Nullable String taskPath) {
+    myAnnouncedTask = taskPath;
+  }
+
+  @Nullable
+  public synchronized String getOutputOwner() {
+    if (myAnnouncedTask != null) {
+      return myAnnouncedTask;
+    }
+    return myRunningTasks.size() == 1 ? myRunningTasks.values().iterator().next() : null;
+  }
+}
@@ -0,0 +1,24 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Stores output lines of the build tasks, indexed by the task path
+ */
+public interface TaskOutputStore extends AutoCloseable {
+
+  void append(@NotNull String taskPath, @NotNull String line);
+
+  /**
+   * @return the lines stored for the task in the order they were appended, or an empty list if there are none
+   */
+  @NotNull
+  List<String> getLines(@NotNull String taskPath);
+
+  /**
+   * Releases the resources held by the store. The stored lines are not available afterwards.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,143 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static jetbrains.buildServer.gradle.runtime.output.TestEventsFileWriter.*;
+
+/**
+ * Reads the service messages written by {@link TestEventsFileWriter} while the file is still being written:
+ * every {@link #readAvailable} call returns the messages of the records completed since the previous call.
+ * <p>
+ * Not thread-safe.
+ */
+public final class TestEventsFileReader implements Closeable {
+  private static final int HEADER_SIZE = 5;
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+  private final File myFile;
+  private final List<String> myStrings = new ArrayList<>();
+  @Nullable
+  private RandomAccessFile myInput;
+  private boolean myHeaderRead = false;
+  /**
+   * The bytes read from the file and not parsed yet, from 0 to {@link #myBufferEnd}
+   */
+  private byte[] myBuffer = new byte[INITIAL_BUFFER_SIZE];
+  private int myBufferEnd = 0;
+
+  public TestEventsFileReader(@NotNull File file) {
+    myFile = file;
+  }
+
+  /**
+   * @param consumer receives the name and the attributes of every message, in the order they were written
+   * @return the number of the messages read, 0 if the file doesn't exist yet
+   */
+  public int readAvailable(@NotNull BiConsumer<String, Map<String, String>> consumer) throws IOException {
+    if (myInput == null) {
+      if (!myFile.isFile()) return 0;
+      myInput = new RandomAccessFile(myFile, "r");
+    }
+
+    int messages = 0;
+    while (true) {
+      if (myBufferEnd == myBuffer.length) {
+        myBuffer = Arrays.copyOf(myBuffer, myBuffer.length * 2);
+      }
+      int read = myInput.read(myBuffer, myBufferEnd, myBuffer.length - myBufferEnd);
+      if (read <= 0) return messages;
+      myBufferEnd += read;
+      messages += parseRecords(consumer);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (myInput != null) {
+      myInput.close();
+    }
+  }
+
+  private int parseRecords(@NotNull BiConsumer<String, Map<String, String>> consumer) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(myBuffer, 0, myBufferEnd);
+    if (!myHeaderRead) {
+      if (buffer.remaining() < HEADER_SIZE) return 0;
+      if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+        throw new IOException("Unsupported test events file format: " + myFile);
+      }
+      myHeaderRead = true;
+    }
+
+    int messages = 0;
+    while (buffer.remaining() >= Integer.BYTES) {
+      int recordStart = buffer.position();
+      int length = buffer.getInt();
+      if (buffer.remaining() < length) {
+        buffer.position(recordStart);
+        break;
+      }
+      int recordEnd = buffer.position() + length;
+      if (parseRecord(buffer, recordEnd, consumer)) messages++;
+      buffer.position(recordEnd);
+    }
+
+    int parsed = buffer.position();
+    System.arraycopy(myBuffer, parsed, myBuffer, 0, myBufferEnd - parsed);
+    myBufferEnd -= parsed;
+    return messages;
+  }
+
+  private boolean parseRecord(@NotNull ByteBuffer buffer,
+                              int recordEnd,
+                              @NotNull BiConsumer<String, Map<String, String>> consumer) throws IOException {
+    byte type = buffer.get();
+    switch (type) {
+      case STRING_RECORD:
+        int id = buffer.getInt();
+        if (id != myStrings.size()) {
+          throw new IOException("Unexpected string id " + id + " in the test events file " + myFile + ", expected " + myStrings.size());
+        }
+        myStrings.add(readString(buffer, recordEnd - buffer.position()));
+        return false;
+      case MESSAGE_RECORD:
+        String name = getString(buffer.getInt());
+        int attributeCount = buffer.getInt();
+        Map<String, String> attributes = new LinkedHashMap<>(attributeCount * 2);
+        for (int i = 0; i < attributeCount; i++) {
+          String key = getString(buffer.getInt());
+          byte valueType = buffer.get();
+          String value = valueType == INTERNED_VALUE ? getString(buffer.getInt()) : readString(buffer, buffer.getInt());
+          attributes.put(key, value);
+        }
+        consumer.accept(name, attributes);
+        return true;
+      default:
+        // written by a newer init script, skipped
+        return false;
+    }
+  }
+
+  @NotNull
+  private String getString(int id) throws IOException {
+    if (id < 0 || id >= myStrings.size()) {
+      throw new IOException("Unknown string id " + id + " in the test events file " + myFile);
+    }
+    return myStrings.get(id);
+  }
+
+  @NotNull
+  private static String readString(@NotNull ByteBuffer buffer, int length) {
+    String result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return result;
+  }
+}
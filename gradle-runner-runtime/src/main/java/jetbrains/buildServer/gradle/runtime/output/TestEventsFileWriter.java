@@ -0,0 +1,120 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes the service messages of test tasks to a binary file, which the agent reads while the build is running, see {@link TestEventsFileReader}.
+ * The messages don't go through the Gradle logging and console output, and they aren't escaped in the Gradle process.
+ * The agent still logs every message as the service message text, which its service message processing parses as usual.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by records. Every record is prefixed with its length, so a record
+ * that is only partially written when the agent reads the file is read next time. A record is either:
+ * <ul>
+ *   <li>{@link #STRING_RECORD}: a string id followed by the UTF-8 bytes of the string. The ids are assigned sequentially starting from 0.
+ *   Message names, attribute names and the values identifying tests and flows are written once and then referred to by their ids</li>
+ *   <li>{@link #MESSAGE_RECORD}: the message name id and the attribute count followed by the attributes, every attribute is its name id
+ *   and either an {@link #INTERNED_VALUE} with the value id or an {@link #INLINE_VALUE} with the value length and its UTF-8 bytes</li>
+ * </ul>
+ * Not thread-safe.
+ */
+public final class TestEventsFileWriter implements Closeable {
+  static final int MAGIC = 0x54435445;
+  static final byte VERSION = 1;
+  static final byte STRING_RECORD = 1;
+  static final byte MESSAGE_RECORD = 2;
+  static final byte INTERNED_VALUE = 0;
+  static final byte INLINE_VALUE = 1;
+
+  /**
+   * The attributes repeated in every message of a test or a flow, e.g. testStarted, testStdOut and testFinished of a test
+   */
+  private static final Set<String> INTERNED_ATTRIBUTES = new HashSet<>(Arrays.asList("name", "testName", "flowId", "parent"));
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataOutputStream myOutput;
+  private final ByteArrayOutputStream myRecordBytes = new ByteArrayOutputStream(1024);
+  private final DataOutputStream myRecord = new DataOutputStream(myRecordBytes);
+  private final Map<String, Integer> myStringIds = new HashMap<>();
+
+  public TestEventsFileWriter(@NotNull File file) throws IOException {
+    myOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    myOutput.writeInt(MAGIC);
+    myOutput.writeByte(VERSION);
+  }
+
+  public void write(@NotNull String name, @Nullable Map<String, ?> attributes) throws IOException {
+    // the string records must precede the message referring to them
+    int nameId = intern(name);
+    if (attributes != null) {
+      for (Map.Entry<String, ?> attribute : attributes.entrySet()) {
+        intern(attribute.getKey());
+        if (isInterned(attribute.getKey())) intern(toString(attribute.getValue()));
+      }
+    }
+
+    myRecordBytes.reset();
+    myRecord.writeByte(MESSAGE_RECORD);
+    myRecord.writeInt(nameId);
+    myRecord.writeInt(attributes != null ? attributes.size() : 0);
+    if (attributes != null) {
+      for (Map.Entry<String, ?> attribute : attributes.entrySet()) {
+        myRecord.writeInt(myStringIds.get(attribute.getKey()));
+        String value = toString(attribute.getValue());
+        if (isInterned(attribute.getKey())) {
+          myRecord.writeByte(INTERNED_VALUE);
+          myRecord.writeInt(myStringIds.get(value));
+        } else {
+          byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+          myRecord.writeByte(INLINE_VALUE);
+          myRecord.writeInt(bytes.length);
+          myRecord.write(bytes);
+        }
+      }
+    }
+    writeRecord();
+  }
+
+  /**
+   * Makes the records written so far visible to the agent
+   */
+  public void flush() throws IOException {
+    myOutput.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    myOutput.close();
+  }
+
+  private int intern(@NotNull String value) throws IOException {
+    Integer id = myStringIds.get(value);
+    if (id != null) return id;
+
+    id = myStringIds.size();
+    myStringIds.put(value, id);
+    myRecordBytes.reset();
+    myRecord.writeByte(STRING_RECORD);
+    myRecord.writeInt(id);
+    myRecord.write(value.getBytes(StandardCharsets.UTF_8));
+    writeRecord();
+    return id;
+  }
+
+  private void writeRecord() throws IOException {
+    myOutput.writeInt(myRecordBytes.size());
+    myRecordBytes.writeTo(myOutput);
+  }
+
+  private static boolean isInterned(@Nullable String attributeName) {
+    return INTERNED_ATTRIBUTES.contains(attributeName);
+  }
+
+  @NotNull
+  private static String toString(@Nullable Object value) {
+    return value != null ? value.toString() : "";
+  }
+}
@@ -0,0 +1,289 @@
+package jetbrains.buildServer.gradle.runtime.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Buffers the stdout and stderr output of the running tests until it is reported as testStdOut and testStdErr service messages.
+ * The output is held as text rather than as the Gradle output events, and a test's output should be taken once {@link #append} returns true:
+ * after {@link #MAX_EVENTS_PER_TEST} output events or once its size reaches the flush threshold, in bytes.
+ * <p>
+ * When the output held in memory for all the tests exceeds the byte budget, it is moved to a single append-only spill file,
+ * and every test remembers the file regions that belong to it.
+ * <p>
+ * The tests of all the test tasks and forks of the build append their output concurrently, so every test's output is guarded by itself,
+ * and the memory taken by all of it is counted without a lock. The buffer-wide lock is only taken to move the output to the spill file
+ * and to read it back.
+ *
+ * @param <T> identifies a test
+ */
+public class TestOutputBuffer<T> implements AutoCloseable {
+
+  public static final int MAX_EVENTS_PER_TEST = 100;
+  public static final long DEFAULT_FLUSH_THRESHOLD_BYTES = 64 * 1024;
+  public static final long DEFAULT_MEMORY_BUDGET_BYTES = 16L * 1024 * 1024;
+
+  private static final String SPILL_FILE_PREFIX = "test-output";
+  private static final String SPILL_FILE_SUFFIX = ".spill";
+
+  private final File mySpillDirectory;
+  private final long myFlushThresholdBytes;
+  private final long myMemoryBudgetBytes;
+  private final ConcurrentMap<T, TestOutputParts> myTests = new ConcurrentHashMap<>();
+  private final AtomicLong myMemoryBytes = new AtomicLong();
+  private final AtomicLong myPeakMemoryBytes = new AtomicLong();
+  /**
+   * Guards the spill file and the fields below
+   */
+  private final Object mySpillLock = new Object();
+  @Nullable
+  private File mySpillFile;
+  @Nullable
+  private FileChannel mySpillChannel;
+  private long mySpillSize = 0;
+  @Nullable
+  private IOException mySpillFailure;
+
+  public TestOutputBuffer(@NotNull File spillDirectory, long flushThresholdBytes, long memoryBudgetBytes) {
+    mySpillDirectory = spillDirectory;
+    myFlushThresholdBytes = flushThresholdBytes;
+    myMemoryBudgetBytes = memoryBudgetBytes;
+  }
+
+  /**
+   * @return true if the output of the test should be taken and reported now
+   */
+  public boolean append(@NotNull T test, boolean stdErr, @NotNull String text) {
+    long size = estimateSize(text);
+    boolean shouldFlush;
+    while (true) {
+      TestOutputParts output = myTests.computeIfAbsent(test, k -> new TestOutputParts());
+      synchronized (output) {
+        // taken concurrently, the output goes to the new entry
+        if (output.myTaken) continue;
+        (stdErr ? output.myStdErr : output.myStdOut).myText.append(text);
+        output.myEvents++;
+        output.myBytes += size;
+        output.myMemoryBytes += size;
+        shouldFlush = output.myEvents > MAX_EVENTS_PER_TEST || output.myBytes >= myFlushThresholdBytes;
+      }
+      break;
+    }
+
+    long memoryBytes = myMemoryBytes.addAndGet(size);
+    myPeakMemoryBytes.accumulateAndGet(memoryBytes, Math::max);
+    if (!shouldFlush && memoryBytes > myMemoryBudgetBytes) {
+      spill();
+    }
+    return shouldFlush;
+  }
+
+  /**
+   * Removes the output of the test from the buffer
+   *
+   * @return the output appended since the previous call, null if there is none
+   */
+  @Nullable
+  public TestOutput take(@NotNull T test) {
+    TestOutputParts output = myTests.remove(test);
+    if (output == null) return null;
+
+    synchronized (output) {
+      // neither appended to nor spilled anymore
+      output.myTaken = true;
+      myMemoryBytes.addAndGet(-output.myMemoryBytes);
+    }
+    if (output.myStdOut.mySegments.isEmpty() && output.myStdErr.mySegments.isEmpty()) {
+      return new TestOutput(output.myStdOut.myText.toString(), output.myStdErr.myText.toString());
+    }
+    synchronized (mySpillLock) {
+      return new TestOutput(read(output.myStdOut), read(output.myStdErr));
+    }
+  }
+
+  /**
+   * @return the number of bytes moved from memory to the spill file
+   */
+  public long getSpilledBytes() {
+    synchronized (mySpillLock) {
+      return mySpillSize;
+    }
+  }
+
+  /**
+   * @return the largest amount of output held in memory at once, in bytes
+   */
+  public long getPeakMemoryBytes() {
+    return myPeakMemoryBytes.get();
+  }
+
+  /**
+   * @return the error the output couldn't be moved to the spill file or read from it with, if any
+   */
+  @Nullable
+  public IOException getSpillFailure() {
+    synchronized (mySpillLock) {
+      return mySpillFailure;
+    }
+  }
+
+  /**
+   * Drops the output left in the buffer and deletes the spill file
+   */
+  @Override
+  public void close() {
+    synchronized (mySpillLock) {
+      myTests.clear();
+      myMemoryBytes.set(0);
+      if (mySpillChannel != null) {
+        try {
+          mySpillChannel.close();
+        } catch (IOException ignored) {
+        }
+        mySpillChannel = null;
+      }
+      if (mySpillFile != null) {
+        //noinspection ResultOfMethodCallIgnored
+        mySpillFile.delete();
+        mySpillFile = null;
+      }
+    }
+  }
+
+  private void spill() {
+    synchronized (mySpillLock) {
+      // another thread may have spilled the output while this one was waiting for the lock
+      if (mySpillFailure != null || myMemoryBytes.get() <= myMemoryBudgetBytes) return;
+      try {
+        if (mySpillChannel == null) {
+          mySpillDirectory.mkdirs();
+          mySpillFile = File.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX, mySpillDirectory);
+          mySpillChannel = FileChannel.open(mySpillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        for (TestOutputParts output : myTests.values()) {
+          synchronized (output) {
+            if (output.myTaken) continue;
+            spill(output.myStdOut);
+            spill(output.myStdErr);
+            myMemoryBytes.addAndGet(-output.myMemoryBytes);
+            output.myMemoryBytes = 0;
+          }
+        }
+      } catch (IOException e) {
+        // keep the output in memory, it is better than losing it
+        mySpillFailure = e;
+      }
+    }
+  }
+
+  private void spill(@NotNull StreamOutput output) throws IOException {
+    if (output.myText.length() == 0) return;
+
+    ByteBuffer buffer = ByteBuffer.wrap(output.myText.toString().getBytes(StandardCharsets.UTF_8));
+    long position = mySpillSize;
+    while (buffer.hasRemaining()) {
+      mySpillChannel.write(buffer, position + buffer.position());
+    }
+    output.mySegments.add(new Segment(position, buffer.capacity()));
+    mySpillSize += buffer.capacity();
+    // don't keep the capacity of a large output
+    output.myText = new StringBuilder();
+  }
+
+  @NotNull
+  private String read(@NotNull StreamOutput output) {
+    if (output.mySegments.isEmpty()) return output.myText.toString();
+
+    StringBuilder result = new StringBuilder();
+    for (Segment segment : output.mySegments) {
+      try {
+        result.append(readSegment(segment));
+      } catch (IOException e) {
+        mySpillFailure = e;
+      }
+    }
+    return result.append(output.myText).toString();
+  }
+
+  @NotNull
+  private String readSegment(@NotNull Segment segment) throws IOException {
+    if (mySpillChannel == null) throw new IOException("The test output spill file is closed");
+
+    ByteBuffer buffer = ByteBuffer.allocate(segment.myLength);
+    while (buffer.hasRemaining()) {
+      if (mySpillChannel.read(buffer, segment.myOffset + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file: " + mySpillFile);
+      }
+    }
+    return new String(buffer.array(), StandardCharsets.UTF_8);
+  }
+
+  private static long estimateSize(@NotNull CharSequence text) {
+    return (long)text.length() * Character.BYTES;
+  }
+
+  /**
+   * The output of a test taken from the buffer, either of the streams can be empty
+   */
+  public static class TestOutput {
+    private final String myStdOut;
+    private final String myStdErr;
+
+    private TestOutput(@NotNull String stdOut, @NotNull String stdErr) {
+      myStdOut = stdOut;
+      myStdErr = stdErr;
+    }
+
+    @NotNull
+    public String getStdOut() {
+      return myStdOut;
+    }
+
+    @NotNull
+    public String getStdErr() {
+      return myStdErr;
+    }
+  }
+
+  /**
+   * Guarded by itself
+   */
+  private static class TestOutputParts {
+    private final StreamOutput myStdOut = new StreamOutput();
+    private final StreamOutput myStdErr = new StreamOutput();
+    private int myEvents = 0;
+    private long myBytes = 0;
+    /**
+     * The part of {@link #myBytes} held in memory
+     */
+    private long myMemoryBytes = 0;
+    private boolean myTaken = false;
+  }
+
+  private static class StreamOutput {
+    private StringBuilder myText = new StringBuilder();
+    private final List<Segment> mySegments = new ArrayList<>();
+  }
+
+  private static class Segment {
+    private final long myOffset;
+    private final int myLength;
+
+    private Segment(long offset, int length) {
+      myOffset = offset;
+      myLength = length;
+    }
+  }
+}
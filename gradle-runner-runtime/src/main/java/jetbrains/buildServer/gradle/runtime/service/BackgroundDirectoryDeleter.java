@@ -0,0 +1,149 @@
+package jetbrains.buildServer.gradle.runtime.service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Deletes directories off the build's critical path.
+ * A directory that has to be replaced is renamed aside first, so a new one can be created right away.
+ * Subdirectories are deleted in parallel, each of them with a {@link FileVisitor}.
+ * Deletion runs on a non-daemon thread, so the JVM finishes it before exiting.
+ */
+public class BackgroundDirectoryDeleter {
+
+  private static final String TRASH_INFIX = ".trash-";
+  private static final int PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  private final GradleToolingLogger myLogger;
+  private final ForkJoinPool myPool = new ForkJoinPool(PARALLELISM);
+
+  public BackgroundDirectoryDeleter(@NotNull GradleToolingLogger logger) {
+    myLogger = logger;
+  }
+
+  /**
+   * Renames the directory to a sibling which is not used by anyone.
+   *
+   * @return the new location of the directory
+   */
+  @NotNull
+  public Path moveAside(@NotNull Path dir) throws IOException {
+    Path target = dir.resolveSibling(dir.getFileName() + TRASH_INFIX + System.nanoTime());
+    try {
+      return Files.move(dir, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      return Files.move(dir, target);
+    }
+  }
+
+  /**
+   * Starts deletion of the directories left by {@link #moveAside(Path)} calls of the previous builds.
+   */
+  public void deleteLeftoversInBackground(@NotNull Path dir) {
+    Path parent = dir.toAbsolutePath().getParent();
+    if (parent == null || !Files.isDirectory(parent)) return;
+
+    try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(parent, dir.getFileName() + TRASH_INFIX + "*")) {
+      for (Path leftover : leftovers) {
+        deleteInBackground(leftover);
+      }
+    } catch (IOException e) {
+      myLogger.debug(String.format("Couldn't list leftover directories: path=%s, message=%s", parent, e.getMessage()));
+    }
+  }
+
+  @NotNull
+  public CompletableFuture<Void> deleteInBackground(@NotNull Path dir) {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    Thread thread = new Thread(() -> {
+      try {
+        delete(dir);
+        result.complete(null);
+      } catch (Throwable t) {
+        myLogger.warn(String.format("Couldn't delete directory: path=%s, message=%s", dir, t.getMessage()));
+        result.completeExceptionally(t);
+      }
+    }, "TeamCity directory deleter");
+    thread.setDaemon(false);
+    thread.start();
+    return result;
+  }
+
+  /**
+   * Deletes the directory on the calling thread. Subdirectories are still deleted in parallel.
+   */
+  public void delete(@NotNull Path dir) throws IOException {
+    if (!Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) return;
+
+    if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+      Files.delete(dir);
+      return;
+    }
+
+    Queue<IOException> errors = new ConcurrentLinkedQueue<>();
+    List<ForkJoinTask<?>> subtrees = new ArrayList<>();
+    try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+      for (Path child : children) {
+        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+          subtrees.add(myPool.submit(() -> deleteTree(child, errors)));
+        } else {
+          deleteFile(child, errors);
+        }
+      }
+    }
+    subtrees.forEach(ForkJoinTask::join);
+
+    if (!errors.isEmpty()) {
+      throw errors.peek();
+    }
+    Files.delete(dir);
+  }
+
+  private static void deleteTree(@NotNull Path dir, @NotNull Queue<IOException> errors) {
+    try {
+      Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          deleteFile(file, errors);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+          errors.add(e);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+          if (e != null) {
+            errors.add(e);
+          } else {
+            deleteFile(directory, errors);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      errors.add(e);
+    }
+  }
+
+  private static void deleteFile(@NotNull Path file, @NotNull Queue<IOException> errors) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      errors.add(e);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package jetbrains.buildServer.gradle.runtime.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Optional;
+import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps the Gradle build environment of the projects built on the agent, so the next builds of the same project
+ * don't have to request the {@link org.gradle.tooling.model.build.BuildEnvironment} model from Gradle.
+ * <p>
+ * An entry is keyed by the project directory, the Gradle distribution, the Gradle arguments, JAVA_HOME
+ * and the contents of the files configuring the Gradle daemon JVM, so changing any of them leads to a cache miss.
+ * The files are the gradle.properties of the root build, which is found like Gradle does by looking for the settings file
+ * from the project directory up, of the project directory, of the Gradle user home and of the Gradle installation.
+ * The gradle.properties of a wrapper distribution isn't taken into account, the distribution is unpacked by the wrapper and is not expected
+ * to be edited.
+ */
+public class BuildEnvironmentCache {
+
+  private static final Gson GSON = new Gson();
+  private static final String ENTRY_EXTENSION = ".json";
+
+  private final Path myCacheDir;
+  private final GradleToolingLogger myLogger;
+
+  public BuildEnvironmentCache(@NotNull Path cacheDir, @NotNull GradleToolingLogger logger) {
+    myCacheDir = cacheDir;
+    myLogger = logger;
+  }
+
+  /**
+   * @return the cache key, or null if the build environment of the build can't be cached
+   */
+  @Nullable
+  public String computeKey(@NotNull String workingDir,
+                           boolean useWrapper,
+                           @Nullable String gradleWrapperProperties,
+                           @Nullable String gradleHome,
+                           @NotNull Collection<String> gradleParams,
+                           @Nullable String javaHome,
+                           @Nullable String gradleUserHome) {
+    if (gradleParams.stream().anyMatch(BuildEnvironmentCache::isLocationParam)) {
+      // the gradle.properties of the user home or of the root build can't be taken into account
+      return null;
+    }
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      update(digest, new File(workingDir).getAbsolutePath());
+      update(digest, String.valueOf(useWrapper));
+      if (useWrapper) {
+        updateWithFile(digest, gradleWrapperProperties == null ? null : Paths.get(gradleWrapperProperties));
+      } else {
+        update(digest, gradleHome);
+      }
+      gradleParams.forEach(it -> update(digest, it));
+      update(digest, javaHome);
+      Path projectDir = Paths.get(workingDir).toAbsolutePath();
+      Path rootDir = findRootBuildDir(projectDir);
+      updateWithFile(digest, rootDir.resolve("gradle.properties"));
+      updateWithFile(digest, rootDir.resolve("gradle").resolve("gradle-daemon-jvm.properties"));
+      if (!rootDir.equals(projectDir)) {
+        updateWithFile(digest, projectDir.resolve("gradle.properties"));
+      }
+      if (!useWrapper && gradleHome != null) {
+        updateWithFile(digest, Paths.get(gradleHome, "gradle.properties"));
+      }
+      Path userHome = gradleUserHome != null ? Paths.get(gradleUserHome) : Paths.get(System.getProperty("user.home"), ".gradle");
+      updateWithFile(digest, userHome.resolve("gradle.properties"));
+      return toHex(digest.digest());
+    } catch (NoSuchAlgorithmException | IOException e) {
+      myLogger.debug("Failed to compute the Gradle build environment cache key: " + e);
+      return null;
+    }
+  }
+
+  @NotNull
+  public Optional<GradleEnvironmentInfo> get(@NotNull String key) {
+    Path entry = myCacheDir.resolve(key + ENTRY_EXTENSION);
+    if (!Files.isRegularFile(entry)) {
+      return Optional.empty();
+    }
+
+    try (Reader reader = Files.newBufferedReader(entry, StandardCharsets.UTF_8)) {
+      GradleEnvironmentInfo info = GSON.fromJson(reader, GradleEnvironmentInfo.class);
+      if (info == null || info.getGradleVersion() == null || info.getJavaHome() == null || info.getJvmArguments() == null
+          || !new File(info.getJavaHome()).isDirectory()) {
+        return Optional.empty();
+      }
+      return Optional.of(info);
+    } catch (IOException | JsonParseException e) {
+      myLogger.debug("Failed to read the Gradle build environment from " + entry + ": " + e);
+      return Optional.empty();
+    }
+  }
+
+  public void put(@NotNull String key, @NotNull GradleEnvironmentInfo info) {
+    Path entry = myCacheDir.resolve(key + ENTRY_EXTENSION);
+    try {
+      Files.createDirectories(myCacheDir);
+      // several builds can run on the agent at once, so the entry is replaced atomically
+      Path tempFile = Files.createTempFile(myCacheDir, key, ".tmp");
+      try {
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+          GSON.toJson(info, writer);
+        }
+        Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (IOException e) {
+      myLogger.debug("Failed to store the Gradle build environment to " + entry + ": " + e);
+    }
+  }
+
+  private static boolean isLocationParam(@NotNull String param) {
+    return param.equals("-g") || param.startsWith("--gradle-user-home")
+           || param.equals("-p") || param.startsWith("--project-dir")
+           || param.equals("-c") || param.startsWith("--settings-file");
+  }
+
+  /**
+   * @return the closest directory with a settings file, starting from the project directory, or the project directory if there is none
+   */
+  @NotNull
+  private static Path findRootBuildDir(@NotNull Path projectDir) {
+    for (Path dir = projectDir; dir != null; dir = dir.getParent()) {
+      if (Files.isRegularFile(dir.resolve("settings.gradle")) || Files.isRegularFile(dir.resolve("settings.gradle.kts"))) {
+        return dir;
+      }
+    }
+    return projectDir;
+  }
+
+  private static void update(@NotNull MessageDigest digest, @Nullable String value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+  }
+
+  private static void updateWithFile(@NotNull MessageDigest digest, @Nullable Path file) throws IOException {
+    if (file == null || !Files.isRegularFile(file)) {
+      digest.update((byte)1);
+      return;
+    }
+    digest.update(Files.readAllBytes(file));
+    digest.update((byte)0);
+  }
+
+  @NotNull
+  private static String toHex(@NotNull byte[] bytes) {
+    StringBuilder result = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return result.toString();
+  }
+}
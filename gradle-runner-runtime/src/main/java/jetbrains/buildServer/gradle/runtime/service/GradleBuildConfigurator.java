@@ -1,10 +1,16 @@
 package jetbrains.buildServer.gradle.runtime.service;
 
-import com.google.gson.GsonBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import jetbrains.buildServer.ComparisonFailureUtil;
 import jetbrains.buildServer.agent.ClasspathUtil;
 import jetbrains.buildServer.gradle.GradleRunnerConstants;
@@ -12,6 +18,7 @@ import jetbrains.buildServer.gradle.runtime.listening.BuildLifecycleListener;
 import jetbrains.buildServer.gradle.runtime.listening.GradleToolingApiProgressListener;
 import jetbrains.buildServer.gradle.runtime.logging.GradleToolingLogger;
 import jetbrains.buildServer.gradle.runtime.output.GradleOutputWrapper;
+import jetbrains.buildServer.gradle.runtime.output.GradleToolingApiTestReporter;
 import jetbrains.buildServer.gradle.runtime.output.OutputType;
 import jetbrains.buildServer.gradle.runtime.output.TestOutputParser;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessage;
@@ -27,7 +34,10 @@ import org.jetbrains.annotations.Nullable;
  */
 public class GradleBuildConfigurator {
 
+  private static final String GSON_BUILDER_CLASS_FILE = "com/google/gson/GsonBuilder.class";
+
   private final GradleToolingLogger logger;
+  private final List<GradleOutputWrapper> outputWrappers = new ArrayList<>();
 
   public GradleBuildConfigurator(GradleToolingLogger logger) {
     this.logger = logger;
@@ -76,6 +86,7 @@ public class GradleBuildConfigurator {
                                             @NotNull Collection<String> overridedJvmArgs,
                                             @NotNull BuildLifecycleListener buildListener,
                                             @NotNull String buildNumber,
+                                            @Nullable GradleToolingApiTestReporter testReporter,
                                             @NotNull ProjectConnection connection) {
     BuildLauncher launcher = connection.newBuild();
 
@@ -83,21 +94,72 @@ public class GradleBuildConfigurator {
       launcher.addJvmArguments(overridedJvmArgs);
     }
 
-    launcher.addProgressListener(new GradleToolingApiProgressListener(buildListener, logger, buildNumber), OperationType.TASK);
+    Set<OperationType> operationTypes = EnumSet.of(OperationType.TASK, OperationType.FILE_DOWNLOAD);
+    if (testReporter != null) {
+      operationTypes.add(OperationType.TEST);
+      operationTypes.add(OperationType.TEST_OUTPUT);
+    }
+    launcher.addProgressListener(new GradleToolingApiProgressListener(buildListener, logger, buildNumber, testReporter), operationTypes);
     launcher.addArguments(tasksAndParams);
     launcher.setEnvironmentVariables(env);
-    launcher.setStandardOutput(new GradleOutputWrapper(buildListener, OutputType.STD_OUT));
-    launcher.setStandardError(new GradleOutputWrapper(buildListener, OutputType.STD_ERR));
+    launcher.setStandardOutput(createOutputWrapper(buildListener, OutputType.STD_OUT));
+    launcher.setStandardError(createOutputWrapper(buildListener, OutputType.STD_ERR));
 
     return launcher;
   }
 
+  /**
+   * Reports the remaining unterminated build output lines. Should be called when the build is finished.
+   */
+  public void closeBuildOutput() {
+    outputWrappers.forEach(wrapper -> {
+      try {
+        wrapper.close();
+      } catch (IOException e) {
+        logger.warn("Couldn't close build output: " + e.getMessage());
+      }
+    });
+  }
+
+  @NotNull
+  private GradleOutputWrapper createOutputWrapper(@NotNull BuildLifecycleListener buildListener,
+                                                  @NotNull OutputType outputType) {
+    GradleOutputWrapper wrapper = new GradleOutputWrapper(buildListener, outputType);
+    outputWrappers.add(wrapper);
+    return wrapper;
+  }
+
   @NotNull
   public static String getInitScriptClasspath() throws IOException {
     return new File(ClasspathUtil.getClasspathEntry(ServiceMessage.class)).getAbsolutePath()                                // service-messages
            + File.pathSeparator + new File(ClasspathUtil.getClasspathEntry(ComparisonFailureUtil.class)).getAbsolutePath()  // runtime-util
            + File.pathSeparator + new File(ClasspathUtil.getClasspathEntry(TestOutputParser.class)).getAbsolutePath()       // gradle-runner-runtime
            + File.pathSeparator + new File(ClasspathUtil.getClasspathEntry(GradleRunnerConstants.class)).getAbsolutePath()  // gradle-runner-common
-           + File.pathSeparator + new File(ClasspathUtil.getClasspathEntry(GsonBuilder.class)).getAbsolutePath();           // Unsure if it is needed
+           + File.pathSeparator + getClasspathEntry(GSON_BUILDER_CLASS_FILE);                                               // Unsure if it is needed
+  }
+
+  /**
+   * Finds the classpath entry of a class by its class file, so the class, e.g. a Gson one, is not loaded into the launcher JVM
+   */
+  @NotNull
+  private static String getClasspathEntry(@NotNull String classFile) throws IOException {
+    URL url = GradleBuildConfigurator.class.getClassLoader().getResource(classFile);
+    if (url == null) {
+      throw new IOException("Couldn't find " + classFile + " on the classpath");
+    }
+
+    try {
+      if ("jar".equals(url.getProtocol())) {
+        return new File(((JarURLConnection)url.openConnection()).getJarFileURL().toURI()).getAbsolutePath();
+      }
+      // a directory of classes, the class file is nested in its package directories
+      File entry = new File(url.toURI());
+      for (int i = 0; i < classFile.split("/").length; i++) {
+        entry = entry.getParentFile();
+      }
+      return entry.getAbsolutePath();
+    } catch (URISyntaxException e) {
+      throw new IOException("Couldn't get the classpath entry of " + classFile + " from " + url, e);
+    }
   }
 }
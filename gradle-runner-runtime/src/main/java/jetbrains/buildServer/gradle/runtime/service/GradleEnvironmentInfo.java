@@ -0,0 +1,47 @@
+package jetbrains.buildServer.gradle.runtime.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gradle.tooling.model.build.BuildEnvironment;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The part of the Gradle {@link BuildEnvironment} model used by the Tooling API launcher
+ */
+public class GradleEnvironmentInfo {
+
+  @NotNull
+  private final String gradleVersion;
+  @NotNull
+  private final String javaHome;
+  @NotNull
+  private final List<String> jvmArguments;
+
+  public GradleEnvironmentInfo(@NotNull String gradleVersion, @NotNull String javaHome, @NotNull List<String> jvmArguments) {
+    this.gradleVersion = gradleVersion;
+    this.javaHome = javaHome;
+    this.jvmArguments = jvmArguments;
+  }
+
+  @NotNull
+  public static GradleEnvironmentInfo fromBuildEnvironment(@NotNull BuildEnvironment buildEnvironment) {
+    return new GradleEnvironmentInfo(buildEnvironment.getGradle().getGradleVersion(),
+                                     buildEnvironment.getJava().getJavaHome().getAbsolutePath(),
+                                     new ArrayList<>(buildEnvironment.getJava().getJvmArguments()));
+  }
+
+  @NotNull
+  public String getGradleVersion() {
+    return gradleVersion;
+  }
+
+  @NotNull
+  public String getJavaHome() {
+    return javaHome;
+  }
+
+  @NotNull
+  public List<String> getJvmArguments() {
+    return jvmArguments;
+  }
+}
@@ -0,0 +1,54 @@
+package jetbrains.buildServer.gradle.runtime.service;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.gradle.tooling.events.OperationDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Creates ids of the build events in the form "[operationId] > [task] > [parent] > ... > [root]".
+ * <p>
+ * Sibling tasks share all their ancestors, so the part of the id made of the ancestors is built once per parent descriptor
+ * and kept in an identity-keyed cache. Only the parents get into the cache, the number of them is small.
+ */
+public class GradleEventIdFactory {
+
+  private static final String SEPARATOR = " > ";
+
+  private final String myOperationPrefix;
+  private final Map<OperationDescriptor, String> myAncestorsCache = new IdentityHashMap<>();
+
+  public GradleEventIdFactory(@NotNull String operationId) {
+    myOperationPrefix = "[" + operationId + "]";
+  }
+
+  @NotNull
+  public String createEventId(@NotNull OperationDescriptor descriptor) {
+    String ancestors = getAncestors(descriptor.getParent());
+    StringBuilder result = new StringBuilder(myOperationPrefix.length() + descriptor.getDisplayName().length() + ancestors.length() + 8);
+    result.append(myOperationPrefix).append(SEPARATOR).append('[').append(descriptor.getDisplayName()).append(']');
+    if (!ancestors.isEmpty()) {
+      result.append(SEPARATOR).append(ancestors);
+    }
+    return result.toString();
+  }
+
+  /**
+   * Ids can be requested lazily by the listeners on other threads, so the cache is guarded
+   */
+  @NotNull
+  private synchronized String getAncestors(@Nullable OperationDescriptor descriptor) {
+    if (descriptor == null) return "";
+
+    String cached = myAncestorsCache.get(descriptor);
+    if (cached != null) return cached;
+
+    String parentAncestors = getAncestors(descriptor.getParent());
+    String ancestors = parentAncestors.isEmpty()
+                       ? "[" + descriptor.getDisplayName() + "]"
+                       : "[" + descriptor.getDisplayName() + "]" + SEPARATOR + parentAncestors;
+    myAncestorsCache.put(descriptor, ancestors);
+    return ancestors;
+  }
+}
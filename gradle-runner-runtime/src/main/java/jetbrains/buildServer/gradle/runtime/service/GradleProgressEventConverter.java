@@ -1,13 +1,22 @@
 package jetbrains.buildServer.gradle.runtime.service;
 
-import java.util.StringJoiner;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import jetbrains.buildServer.gradle.runtime.listening.event.*;
 import org.gradle.tooling.events.OperationDescriptor;
 import org.gradle.tooling.events.OperationResult;
 import org.gradle.tooling.events.ProgressEvent;
+import org.gradle.tooling.events.download.FileDownloadFinishEvent;
+import org.gradle.tooling.events.download.FileDownloadResult;
 import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationDescriptor;
 import org.gradle.tooling.events.task.TaskOperationResult;
 import org.gradle.tooling.events.task.TaskProgressEvent;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+import org.gradle.tooling.model.UnsupportedMethodException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -18,22 +27,36 @@ public class GradleProgressEventConverter {
 
   @Nullable
   public static BuildEvent createTaskNotificationEvent(@NotNull ProgressEvent event,
-                                                       @NotNull String operationId) {
+                                                       @NotNull GradleEventIdFactory eventIdFactory) {
     if (event instanceof TaskProgressEvent) {
-      return convertTaskProgressEvent((TaskProgressEvent)event, operationId);
+      return convertTaskProgressEvent((TaskProgressEvent)event, eventIdFactory);
+    }
+    if (event instanceof FileDownloadFinishEvent) {
+      return convertFileDownloadFinishEvent((FileDownloadFinishEvent)event);
     }
     return null;
   }
 
+  @NotNull
+  private static BuildEvent convertFileDownloadFinishEvent(@NotNull FileDownloadFinishEvent event) {
+    FileDownloadResult result = event.getResult();
+    return new FileDownloadFinishedEventImpl(event.getEventTime(),
+                                             event.getDescriptor().getUri().toString(),
+                                             result.getBytesDownloaded(),
+                                             result.getEndTime() - result.getStartTime(),
+                                             result instanceof org.gradle.tooling.events.FailureResult);
+  }
+
   @Nullable
   private static BuildEvent convertTaskProgressEvent(@NotNull TaskProgressEvent event,
-                                                     @NotNull String operationId) {
-    String eventId = createEventId(event.getDescriptor(), operationId);
-    Long eventTime = event.getEventTime();
+                                                     @NotNull GradleEventIdFactory eventIdFactory) {
+    // the id is created only if some listener asks for it
+    OperationDescriptor descriptor = event.getDescriptor();
+    long eventTime = event.getEventTime();
     String message = event.getDescriptor().getName();
 
     if (event instanceof org.gradle.tooling.events.task.TaskStartEvent) {
-      return new TaskStartedEventImpl(eventId, eventTime, message);
+      return new TaskStartedEventImpl(descriptor, eventIdFactory::createEventId, eventTime, message);
     }
 
     if (event instanceof org.gradle.tooling.events.task.TaskFinishEvent) {
@@ -41,15 +64,41 @@ public class GradleProgressEventConverter {
       TaskOperationResult result = finishEvent.getResult();
       EventResult eventResult = convertTaskProgressEventResult(result);
       if (eventResult != null) {
-        return new TaskFinishedEventImpl(eventId, eventTime, message, eventResult);
+        return new TaskFinishedEventImpl(descriptor, eventIdFactory::createEventId, eventTime, message, eventResult,
+                                         result.getStartTime(), getDependencies(finishEvent.getDescriptor()));
       }
     }
 
     return null;
   }
 
+  @NotNull
+  private static Collection<String> getDependencies(@NotNull TaskOperationDescriptor descriptor) {
+    Set<? extends OperationDescriptor> dependencies;
+    try {
+      dependencies = descriptor.getDependencies();
+    } catch (UnsupportedMethodException e) {
+      return Collections.emptyList();
+    }
+    if (dependencies.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<String> result = new ArrayList<>(dependencies.size());
+    for (OperationDescriptor dependency : dependencies) {
+      if (dependency instanceof TaskOperationDescriptor) {
+        result.add(((TaskOperationDescriptor)dependency).getTaskPath());
+      }
+    }
+    return result;
+  }
+
   @Nullable
   private static EventResult convertTaskProgressEventResult(@NotNull OperationResult result) {
+    if (result instanceof TaskSuccessResult) {
+      TaskSuccessResult successResult = (TaskSuccessResult) result;
+      return new SuccessResultImpl(successResult.isUpToDate(), successResult.isFromCache());
+    }
     if (result instanceof org.gradle.tooling.events.SuccessResult) {
       return new SuccessResultImpl();
     }
@@ -78,16 +127,4 @@ public class GradleProgressEventConverter {
            || description.contains("compilation error")
            || description.contains("compiler failed");
   }
-
-  @NotNull
-  private static String createEventId(@NotNull OperationDescriptor descriptor, @NotNull String operationId) {
-    StringJoiner joiner = new StringJoiner(" > ");
-    joiner.add("[" + operationId + "]");
-    OperationDescriptor currentDescriptor = descriptor;
-    while (currentDescriptor != null) {
-      joiner.add("[" + currentDescriptor.getDisplayName() + "]");
-      currentDescriptor = currentDescriptor.getParent();
-    }
-    return joiner.toString();
-  }
 }